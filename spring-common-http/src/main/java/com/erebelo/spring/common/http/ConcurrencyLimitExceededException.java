@@ -0,0 +1,17 @@
+package com.erebelo.spring.common.http;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Exception thrown when a request is rejected because the number of in-flight
+ * requests to a service reached its concurrency limit. The request is not sent,
+ * so it can be safely retried later or served from a fallback.
+ */
+public class ConcurrencyLimitExceededException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
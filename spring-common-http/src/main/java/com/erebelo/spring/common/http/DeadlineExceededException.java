@@ -0,0 +1,17 @@
+package com.erebelo.spring.common.http;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Exception thrown when a request is not sent because the deadline of the
+ * request it is made for was already reached, so that its response would no
+ * longer be used.
+ */
+public class DeadlineExceededException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
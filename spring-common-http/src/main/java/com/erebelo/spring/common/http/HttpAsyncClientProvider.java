@@ -0,0 +1,339 @@
+package com.erebelo.spring.common.http;
+
+import com.erebelo.spring.common.http.support.BackoffRetryStrategy;
+import com.erebelo.spring.common.http.support.CacheConfiguration;
+import com.erebelo.spring.common.http.support.CachingDnsResolver;
+import com.erebelo.spring.common.http.support.ConnectionConfiguration;
+import com.erebelo.spring.common.http.support.DeadlineConfiguration;
+import com.erebelo.spring.common.http.support.ProtocolConfiguration;
+import com.erebelo.spring.common.http.support.ProxyConfiguration;
+import com.erebelo.spring.common.http.support.RateLimitInterceptor;
+import com.erebelo.spring.common.http.support.RequestConfiguration;
+import com.erebelo.spring.common.http.support.StreamLimitInterceptor;
+import com.erebelo.spring.common.http.support.TlsConfiguration;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.IdleConnectionEvictor;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.cache.CachingHttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Provides the async (non-blocking) HttpClients used by the HTTP client beans.
+ * It creates the clients according to the service properties, including the
+ * configured protocol, and keeps track of their connection pools and idle
+ * connection evictors so that they are all released on shutdown.
+ * <p>
+ * Services configured with the HTTP2 protocol get a client that multiplexes
+ * concurrent requests as streams over a single connection per route. Services
+ * configured with HTTP1 or NEGOTIATE get a pooled client, where NEGOTIATE
+ * selects HTTP/2 through ALPN whenever the server supports it. The pools of
+ * the pooled clients are bound to the pool metrics like the classic ones; HTTP2
+ * clients keep their connections outside of any pool and have no pool metrics.
+ * </p>
+ * <p>
+ * It also holds the TLS strategy and the DNS resolver shared by all the
+ * connection pools, classic ones included, so that they share a single TLS
+ * session cache and DNS cache, and the rate limit of each service, shared by
+ * its classic and async clients. The DNS resolver is shut down together with the
+ * async clients.
+ * </p>
+ */
+@Component
+public class HttpAsyncClientProvider {
+
+    private final HttpClientProperties httpClientProperties;
+    private final TlsStrategy tlsStrategy;
+    private final DnsResolver dnsResolver;
+    private final Map<String, PoolingAsyncClientConnectionManager> sharedConnectionManagers = new ConcurrentHashMap<>();
+    private final List<IdleConnectionEvictor> connectionEvictors = new CopyOnWriteArrayList<>();
+    private final List<CloseableHttpAsyncClient> httpAsyncClients = new CopyOnWriteArrayList<>();
+    private final Map<String, RateLimitInterceptor> rateLimitInterceptors = new ConcurrentHashMap<>();
+    private final ObjectProvider<HttpClientMetrics> httpClientMetricsProvider;
+
+    public HttpAsyncClientProvider(HttpClientProperties httpClientProperties,
+            ObjectProvider<HttpClientMetrics> httpClientMetricsProvider) {
+        this.httpClientProperties = httpClientProperties;
+        this.httpClientMetricsProvider = httpClientMetricsProvider;
+        this.tlsStrategy = TlsConfiguration.tlsStrategy(httpClientProperties.getTls());
+        this.dnsResolver = ConnectionConfiguration.dnsResolver(httpClientProperties.getDns());
+    }
+
+    /**
+     * Returns the TLS strategy shared by all the connection pools, so that
+     * classic pools can resume the TLS sessions of the async ones and vice versa.
+     *
+     * @return the shared TlsStrategy
+     */
+    public TlsStrategy getTlsStrategy() {
+        return tlsStrategy;
+    }
+
+    /**
+     * Returns the DNS resolver shared by all the connection pools, so that host
+     * resolutions are cached once for the classic and async pools.
+     *
+     * @return the shared DnsResolver
+     */
+    public DnsResolver getDnsResolver() {
+        return dnsResolver;
+    }
+
+    /**
+     * Returns the rate limit of the given service, shared by all its clients, so
+     * that its RestTemplate and WebClient draw from the same quota.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param serviceConfig
+     *            the service-specific configuration
+     * @return the RateLimitInterceptor of the service, or null if rate limiting
+     *         is disabled
+     */
+    public RateLimitInterceptor getRateLimitInterceptor(String serviceName,
+            HttpClientProperties.ServiceProperties serviceConfig) {
+        if (!serviceConfig.getRateLimit().isEnabled()) {
+            return null;
+        }
+
+        return rateLimitInterceptors.computeIfAbsent(serviceName,
+                name -> new RateLimitInterceptor(name, serviceConfig.getRateLimit()));
+    }
+
+    /**
+     * Configures, builds and starts an async HttpClient with the same connection,
+     * timeout, proxy, response cache, retry and rate limit settings applied to the
+     * classic HttpClient of the service. The rate limit is applied to each
+     * attempt, after the retry element of the exec chain.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param serviceConfig
+     *            the service-specific configuration for the async HttpClient
+     * @return a started CloseableHttpAsyncClient instance
+     * @throws IllegalStateException
+     *             if the HTTP2 protocol is configured for an external service,
+     *             since HTTP/2 connections cannot be routed through the proxy
+     */
+    public CloseableHttpAsyncClient getHttpAsyncClient(String serviceName,
+            HttpClientProperties.ServiceProperties serviceConfig) {
+        RateLimitInterceptor rateLimitInterceptor = this.getRateLimitInterceptor(serviceName, serviceConfig);
+        ConnectionConfiguration.Properties poolConfig = ConnectionConfiguration.poolProperties(httpClientProperties,
+                serviceConfig);
+        RequestConfig requestConfig = RequestConfiguration.requestConfig(serviceConfig.getRequest(),
+                poolConfig.getLeaseTimeout());
+
+        CloseableHttpAsyncClient httpAsyncClient = serviceConfig
+                .getProtocol() == ProtocolConfiguration.Protocol.HTTP2
+                        ? this.h2AsyncClient(serviceConfig, poolConfig, requestConfig, rateLimitInterceptor)
+                        : this.pooledAsyncClient(serviceName, serviceConfig, poolConfig, requestConfig,
+                                rateLimitInterceptor);
+        httpAsyncClient.start();
+        httpAsyncClients.add(httpAsyncClient);
+
+        return httpAsyncClient;
+    }
+
+    /**
+     * Builds an HTTP/2 only async HttpClient. Requests to the same route share a
+     * single connection, on which they are multiplexed as concurrent streams, up
+     * to the maximum concurrent streams of the service.
+     *
+     * @param serviceConfig
+     *            the service-specific configuration
+     * @param poolConfig
+     *            the pool properties resolved for the service
+     * @param requestConfig
+     *            the default request configuration
+     * @param rateLimitInterceptor
+     *            the rate limit of the service, may be null
+     * @return a CloseableHttpAsyncClient instance
+     */
+    private CloseableHttpAsyncClient h2AsyncClient(HttpClientProperties.ServiceProperties serviceConfig,
+            ConnectionConfiguration.Properties poolConfig, RequestConfig requestConfig,
+            RateLimitInterceptor rateLimitInterceptor) {
+        if (serviceConfig.isExternal()) {
+            throw new IllegalStateException("HTTP/2 protocol is not supported for external services through a proxy");
+        }
+
+        H2AsyncClientBuilder h2AsyncClientBuilder = serviceConfig.getCache().isEnabled()
+                ? CachingHttpAsyncClients.customHttp2()
+                        .setCacheConfig(CacheConfiguration.cacheConfig(serviceConfig.getCache()))
+                : HttpAsyncClients.customHttp2();
+        h2AsyncClientBuilder.disableCookieManagement().setDefaultRequestConfig(requestConfig)
+                .setDefaultConnectionConfig(ConnectionConfiguration.connectionConfig(poolConfig))
+                .setH2Config(ProtocolConfiguration.h2Config())
+                .setTlsStrategy(tlsStrategy)
+                .setDnsResolver(dnsResolver)
+                .useSystemProperties();
+
+        h2AsyncClientBuilder.addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "deadline",
+                DeadlineConfiguration.asyncExecInterceptor());
+        h2AsyncClientBuilder.addExecInterceptorBefore("deadline", "stream-limit",
+                new StreamLimitInterceptor(serviceConfig.getMaxConcurrentStreams()));
+        if (rateLimitInterceptor != null) {
+            h2AsyncClientBuilder.addExecInterceptorBefore("deadline", "rate-limit", rateLimitInterceptor);
+        }
+
+        if (serviceConfig.getRetry().isEnabled()) {
+            h2AsyncClientBuilder.setRetryStrategy(new BackoffRetryStrategy(serviceConfig.getRetry()));
+        }
+
+        if (poolConfig.getEvictIdleAfter() != null) {
+            h2AsyncClientBuilder.evictIdleConnections(TimeValue.ofMilliseconds(poolConfig.getEvictIdleAfter()));
+        }
+
+        return h2AsyncClientBuilder.build();
+    }
+
+    /**
+     * Builds a pooled async HttpClient. If the service is external, proxy settings
+     * are configured accordingly. When the service refers to a shared pool, the
+     * connection manager is reused and marked as shared. When metrics are
+     * available, the time spent leasing connections is recorded for the service.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param serviceConfig
+     *            the service-specific configuration
+     * @param poolConfig
+     *            the pool properties resolved for the service
+     * @param requestConfig
+     *            the default request configuration
+     * @param rateLimitInterceptor
+     *            the rate limit of the service, may be null
+     * @return a CloseableHttpAsyncClient instance
+     */
+    private CloseableHttpAsyncClient pooledAsyncClient(String serviceName,
+            HttpClientProperties.ServiceProperties serviceConfig, ConnectionConfiguration.Properties poolConfig,
+            RequestConfig requestConfig, RateLimitInterceptor rateLimitInterceptor) {
+        HttpAsyncClientBuilder httpAsyncClientBuilder = serviceConfig.getCache().isEnabled()
+                ? CachingHttpAsyncClients.custom()
+                        .setCacheConfig(CacheConfiguration.cacheConfig(serviceConfig.getCache()))
+                : HttpAsyncClients.custom();
+        httpAsyncClientBuilder.disableCookieManagement().setDefaultRequestConfig(requestConfig)
+                .setH2Config(ProtocolConfiguration.h2Config())
+                .useSystemProperties();
+
+        httpAsyncClientBuilder.addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "deadline",
+                DeadlineConfiguration.asyncExecInterceptor());
+        if (rateLimitInterceptor != null) {
+            httpAsyncClientBuilder.addExecInterceptorBefore("deadline", "rate-limit", rateLimitInterceptor);
+        }
+
+        if (serviceConfig.getRetry().isEnabled()) {
+            httpAsyncClientBuilder.setRetryStrategy(new BackoffRetryStrategy(serviceConfig.getRetry()));
+        }
+
+        HttpHost proxy = null;
+        if (serviceConfig.isExternal()) {
+            BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            proxy = ProxyConfiguration.configProxy(credentialsProvider, httpClientProperties.getProxy());
+            httpAsyncClientBuilder.setProxy(proxy);
+        }
+
+        PoolingAsyncClientConnectionManager connectionManager = this.getConnectionManager(serviceName, serviceConfig,
+                poolConfig);
+        ConnectionConfiguration.configRoutes(connectionManager, poolConfig, proxy);
+
+        HttpClientMetrics httpClientMetrics = httpClientMetricsProvider.getIfAvailable();
+        return httpAsyncClientBuilder
+                .setConnectionManager(httpClientMetrics != null
+                        ? httpClientMetrics.instrumentAsyncConnectionManager(serviceName, connectionManager)
+                        : connectionManager)
+                .setConnectionManagerShared(serviceConfig.getSharedPool() != null).build();
+    }
+
+    /**
+     * Returns the async connection manager for the given service. Shared pools are
+     * kept apart from the classic ones, as blocking and non-blocking connections
+     * cannot be pooled together.
+     *
+     * @param serviceName
+     *            the service alias, naming its dedicated pool
+     * @param serviceConfig
+     *            the service-specific configuration
+     * @param poolConfig
+     *            the pool properties resolved for the service
+     * @return the connection manager to be used by the service async HttpClient
+     */
+    private PoolingAsyncClientConnectionManager getConnectionManager(String serviceName,
+            HttpClientProperties.ServiceProperties serviceConfig, ConnectionConfiguration.Properties poolConfig) {
+        if (serviceConfig.getSharedPool() == null) {
+            return this.createConnectionManager(serviceName, serviceConfig, poolConfig);
+        }
+
+        return sharedConnectionManagers.computeIfAbsent(serviceConfig.getSharedPool(),
+                name -> this.createConnectionManager(name, serviceConfig, poolConfig));
+    }
+
+    /**
+     * Creates an async connection manager and, when eviction is configured, starts
+     * the idle connection evictor that keeps its pool free of stale connections.
+     * When metrics are available, the pool is bound to them under the given name,
+     * next to the classic pool of the same name, if any.
+     *
+     * @param poolName
+     *            the service alias or the shared pool name
+     * @param serviceConfig
+     *            the service-specific configuration holding the protocol
+     * @param poolConfig
+     *            the pool properties to apply
+     * @return a new async connection manager
+     */
+    private PoolingAsyncClientConnectionManager createConnectionManager(String poolName,
+            HttpClientProperties.ServiceProperties serviceConfig, ConnectionConfiguration.Properties poolConfig) {
+        PoolingAsyncClientConnectionManager connectionManager = ConnectionConfiguration
+                .asyncConnectionManager(poolConfig, ProtocolConfiguration.tlsConfig(serviceConfig.getProtocol()),
+                        tlsStrategy, dnsResolver);
+        httpClientMetricsProvider
+                .ifAvailable(httpClientMetrics -> httpClientMetrics.bindConnectionPool(poolName, connectionManager));
+
+        IdleConnectionEvictor connectionEvictor = ConnectionConfiguration.idleConnectionEvictor(connectionManager,
+                poolConfig);
+        if (connectionEvictor != null) {
+            connectionEvictors.add(connectionEvictor);
+        }
+
+        return connectionManager;
+    }
+
+    /**
+     * Stops the idle connection evictors and closes the async clients and shared
+     * connection managers when the application context shuts down, releasing their
+     * I/O reactor threads. The DNS resolver is shut down last; this bean is
+     * destroyed after the HTTP client beans depending on it, so that the classic
+     * pools are closed by then as well.
+     */
+    @PreDestroy
+    public void shutdown() {
+        connectionEvictors.forEach(IdleConnectionEvictor::shutdown);
+        connectionEvictors.clear();
+
+        httpAsyncClients.forEach(httpAsyncClient -> httpAsyncClient.close(CloseMode.GRACEFUL));
+        httpAsyncClients.clear();
+
+        sharedConnectionManagers.values().forEach(connectionManager -> connectionManager.close(CloseMode.GRACEFUL));
+        sharedConnectionManagers.clear();
+
+        if (dnsResolver instanceof CachingDnsResolver cachingDnsResolver) {
+            cachingDnsResolver.shutdown();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.erebelo.spring.common.http;
+
+import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.erebelo.spring.common.utils.http.HttpTraceHeader;
+import com.erebelo.spring.common.utils.http.RequestDeadline;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import lombok.Data;
+import org.apache.logging.log4j.ThreadContext;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Executor for calling a service once per item of a collection (e.g. fetching
+ * N resources by id) with bounded parallelism.
+ * <p>
+ * Each call is made through the RestTemplate of the service, keeping its
+ * interceptors and error handling. At most the requested number of calls run
+ * at once, itself capped by the parallelism limit of the service, which is
+ * derived from its connection pool. The limit is shared by all the bulk calls
+ * to the service, so that concurrent bulk calls cannot take all of its
+ * connections from other callers either. The calling thread takes a permit of
+ * the limit before starting each call on the executor, so that the executor
+ * never runs more threads than the limit allows, however many bulk calls wait
+ * for it. The HTTP request attributes, trace headers and logging context of the
+ * calling thread are propagated to the calls.
+ * </p>
+ * <p>
+ * Each item gets its own result, holding either the value or the failure of
+ * its call. The caller waits until every call completed or the deadline
+ * elapsed; items not completed by then fail with a TimeoutException and items
+ * not started yet are skipped. Calls still in flight are not interrupted: they
+ * keep their permit until they return. The deadline is sent as the
+ * RequestDeadline header of the calls, unless the request being handled has an
+ * earlier one, so that the RestTemplates of this library shorten their timeouts
+ * to it and the calls end by the deadline.
+ * </p>
+ */
+public class HttpBulkExecutor {
+
+    private final RestOperations restOperations;
+    private final Executor executor;
+    private final int maxParallelism;
+    private final Semaphore permits;
+
+    /**
+     * @param restOperations
+     *            the RestTemplate of the service
+     * @param executor
+     *            the executor running the worker threads
+     * @param maxParallelism
+     *            the maximum number of concurrent calls to the service, across
+     *            all the bulk calls
+     */
+    public HttpBulkExecutor(RestOperations restOperations, Executor executor, int maxParallelism) {
+        this.restOperations = restOperations;
+        this.executor = executor;
+        this.maxParallelism = maxParallelism;
+        this.permits = new Semaphore(maxParallelism);
+    }
+
+    /**
+     * Calls the service for each item and returns the results in the order of the
+     * items.
+     *
+     * @param items
+     *            the items to call the service for
+     * @param parallelism
+     *            the maximum number of concurrent calls, capped by the limit of
+     *            the service
+     * @param timeout
+     *            the deadline for all the calls
+     * @param call
+     *            the call made for each item
+     * @param <T>
+     *            the type of the items
+     * @param <R>
+     *            the type of the values returned by the calls
+     * @return the results, in the order of the items
+     */
+    public <T, R> List<Result<T, R>> executeAll(Collection<T> items, int parallelism, Duration timeout,
+            BulkCall<T, R> call) {
+        List<Result<T, R>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        this.executeEach(items, parallelism, timeout, call, result -> results.set(result.index(), result));
+        return results;
+    }
+
+    /**
+     * Calls the service for each item and hands each result to the given consumer
+     * as soon as its call completes. The consumer is invoked on the calling
+     * thread, one result at a time, and is guaranteed to receive one result per
+     * item, the ones not completed by the deadline last.
+     *
+     * @param items
+     *            the items to call the service for
+     * @param parallelism
+     *            the maximum number of concurrent calls, capped by the limit of
+     *            the service
+     * @param timeout
+     *            the deadline for all the calls
+     * @param call
+     *            the call made for each item
+     * @param consumer
+     *            the consumer of the results, in completion order
+     * @param <T>
+     *            the type of the items
+     * @param <R>
+     *            the type of the values returned by the calls
+     * @throws IllegalStateException
+     *             if the parallelism is not positive
+     */
+    public <T, R> void executeEach(Collection<T> items, int parallelism, Duration timeout, BulkCall<T, R> call,
+            Consumer<Result<T, R>> consumer) {
+        if (parallelism < 1) {
+            throw new IllegalStateException("Bulk parallelism must be positive: " + parallelism);
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<T> pendingItems = new ArrayList<>(items);
+        int limit = Math.min(parallelism, maxParallelism);
+        BlockingQueue<Result<T, R>> completedResults = new LinkedBlockingQueue<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        UnaryOperator<Runnable> callerContext = this.captureCallerContext(timeout);
+
+        boolean[] reported = new boolean[pendingItems.size()];
+        int reportedCount = 0;
+        int nextIndex = 0;
+        int inFlight = 0;
+        Throwable pendingFailure = null;
+        try {
+            while (reportedCount < pendingItems.size()) {
+                // A permit is taken before starting each call, so that waiting bulk calls hold no thread. The
+                // caller only waits for one when none of its calls is in flight, and otherwise for their results.
+                while (nextIndex < pendingItems.size() && inFlight < limit
+                        && this.acquirePermit(inFlight == 0 ? deadline : System.nanoTime())) {
+                    this.start(nextIndex, pendingItems.get(nextIndex), call, completedResults, cancelled,
+                            callerContext);
+                    nextIndex++;
+                    inFlight++;
+                }
+
+                Result<T, R> result = inFlight > 0
+                        ? completedResults.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        : null;
+                if (result == null) {
+                    pendingFailure = new TimeoutException(
+                            String.format("Bulk call did not complete within %d ms", timeout.toMillis()));
+                    break;
+                }
+                inFlight--;
+                reported[result.index()] = true;
+                reportedCount++;
+                consumer.accept(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendingFailure = e;
+        } finally {
+            cancelled.set(true);
+        }
+
+        for (int index = 0; pendingFailure != null && index < reported.length; index++) {
+            if (!reported[index]) {
+                consumer.accept(new Result<>(index, pendingItems.get(index), null, pendingFailure));
+            }
+        }
+    }
+
+    /**
+     * Starts the call for an item on the executor, with a permit already taken.
+     * The permit is released when the call returns, before its result is
+     * reported, so that the caller can start the next call right away.
+     */
+    private <T, R> void start(int index, T item, BulkCall<T, R> call, BlockingQueue<Result<T, R>> completedResults,
+            AtomicBoolean cancelled, UnaryOperator<Runnable> callerContext) {
+        Runnable task = callerContext.apply(() -> {
+            Result<T, R> result;
+            try {
+                // The bulk call may have been cancelled before the call started
+                if (cancelled.get()) {
+                    return;
+                }
+                result = this.call(index, item, call);
+            } finally {
+                permits.release();
+            }
+            completedResults.add(result);
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            completedResults.add(new Result<>(index, item, null, e));
+        }
+    }
+
+    /**
+     * Waits for a permit of the service parallelism limit, up to the given time.
+     * Items left unprocessed are reported as timed out by the caller.
+     */
+    private boolean acquirePermit(long deadline) {
+        try {
+            return permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Makes the call for an item. Any failure, errors included, is reported as
+     * the result of the item, so that the worker goes on with the next items.
+     */
+    private <T, R> Result<T, R> call(int index, T item, BulkCall<T, R> call) {
+        try {
+            return new Result<>(index, item, call.call(restOperations, item), null);
+        } catch (Throwable e) {
+            return new Result<>(index, item, null, e);
+        }
+    }
+
+    /**
+     * Captures the HTTP request attributes, trace headers and logging context of
+     * the calling thread, returning a function that wraps tasks to run with them.
+     * Outside an HTTP request, the trace headers are resolved once, so that all
+     * the calls share the same RequestID. The RequestDeadline header is set to the
+     * deadline of the bulk call, unless the current one is earlier, so that calls
+     * still in flight when it is reached time out rather than hold their
+     * connection for a response that will not be used.
+     */
+    private UnaryOperator<Runnable> captureCallerContext(Duration timeout) {
+        RequestAttributes contextAttributes = HttpTraceHeader.getRequestAttributes();
+        Map<String, String> httpHeaders = withDeadline(HttpTraceHeader.getCurrentHttpTraceHeaders(),
+                System.currentTimeMillis() + timeout.toMillis());
+        Map<String, String> loggingContext = ThreadContext.getImmutableContext();
+
+        return runnable -> () -> {
+            try {
+                RequestContextHolder.setRequestAttributes(contextAttributes);
+                HeaderContextHolder.set(httpHeaders);
+                ThreadContext.putAll(loggingContext);
+
+                runnable.run();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+                HeaderContextHolder.remove();
+                ThreadContext.clearAll();
+            }
+        };
+    }
+
+    private static Map<String, String> withDeadline(Map<String, String> httpHeaders, long deadline) {
+        Long currentDeadline = RequestDeadline.parse(httpHeaders.get(RequestDeadline.REQUEST_DEADLINE_HEADER));
+        if (currentDeadline != null && currentDeadline <= deadline) {
+            return httpHeaders;
+        }
+
+        Map<String, String> deadlineHeaders = new HashMap<>(httpHeaders);
+        deadlineHeaders.put(RequestDeadline.REQUEST_DEADLINE_HEADER, String.valueOf(deadline));
+        return Map.copyOf(deadlineHeaders);
+    }
+
+    /**
+     * Call made to the service for an item.
+     *
+     * @param <T>
+     *            the type of the item
+     * @param <R>
+     *            the type of the returned value
+     */
+    @FunctionalInterface
+    public interface BulkCall<T, R> {
+
+        /**
+         * Calls the service for the given item.
+         *
+         * @param restOperations
+         *            the RestTemplate of the service
+         * @param item
+         *            the item to call the service for
+         * @return the value of the call
+         */
+        R call(RestOperations restOperations, T item);
+    }
+
+    /**
+     * Result of the call made for an item, holding either its value or its
+     * failure.
+     *
+     * @param index
+     *            the position of the item in the collection
+     * @param item
+     *            the item
+     * @param value
+     *            the value returned by the call, null if it failed
+     * @param failure
+     *            the failure of the call, null if it succeeded
+     * @param <T>
+     *            the type of the item
+     * @param <R>
+     *            the type of the value
+     */
+    public record Result<T, R>(int index, T item, R value, Throwable failure) {
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+
+    /**
+     * A data class that holds bulk call properties. The maximum parallelism caps
+     * the concurrent calls of all the bulk calls to the service together. It is
+     * itself capped by the connections per route of the service pool, or by the
+     * maximum concurrent streams per route for HTTP/2 services, and defaults to
+     * half of them, so that bulk calls leave connections to the other callers of
+     * the service.
+     */
+    @Data
+    public static class Properties {
+        private Integer maxParallelism;
+    }
+}
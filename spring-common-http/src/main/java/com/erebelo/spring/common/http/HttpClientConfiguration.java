@@ -1,46 +1,92 @@
 package com.erebelo.spring.common.http;
 
+import com.erebelo.spring.common.http.support.BackoffRetryStrategy;
+import com.erebelo.spring.common.http.support.CacheConfiguration;
+import com.erebelo.spring.common.http.support.CoalescingInterceptor;
+import com.erebelo.spring.common.http.support.CompressionConfiguration;
+import com.erebelo.spring.common.http.support.ConcurrencyLimitInterceptor;
 import com.erebelo.spring.common.http.support.ConnectionConfiguration;
+import com.erebelo.spring.common.http.support.ConnectionWarmer;
+import com.erebelo.spring.common.http.support.DeadlineConfiguration;
+import com.erebelo.spring.common.http.support.HedgingInterceptor;
+import com.erebelo.spring.common.http.support.LazyClientHttpRequestFactory;
+import com.erebelo.spring.common.http.support.LoadBalancingInterceptor;
+import com.erebelo.spring.common.http.support.RateLimitInterceptor;
+import com.erebelo.spring.common.http.support.RequestAttempt;
+import com.erebelo.spring.common.http.support.HttpAsyncClientRequestFactory;
+import com.erebelo.spring.common.http.support.ProtocolConfiguration;
 import com.erebelo.spring.common.http.support.ProxyConfiguration;
 import com.erebelo.spring.common.http.support.RequestConfiguration;
 import com.erebelo.spring.common.utils.http.HttpTraceHeader;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.IdleConnectionEvictor;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.cache.CachingHttpClients;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.io.CloseMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
-import org.springframework.util.MultiValueMap;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Configuration class for setting up HTTP client-related beans. It provides a
  * default RestTemplate and custom RestTemplates based on application
- * properties, enabling HTTP interactions with services.
+ * properties, enabling HTTP interactions with services. Once all the singletons
+ * are created, the connections of the services with warm-up enabled are warmed
+ * up in a single pass.
  */
 @Configuration
 @RequiredArgsConstructor
 @ConditionalOnProperty(prefix = "spring.common", name = "http-client.enabled", matchIfMissing = true)
-public class HttpClientConfiguration {
+public class HttpClientConfiguration implements SmartInitializingSingleton {
 
     public static final String DEFAULT_REST_TEMPLATE_NAME = "default";
 
     private final ConfigurableBeanFactory beanFactory;
     private final RestTemplateBuilder restTemplateBuilder;
     private final HttpClientProperties httpClientProperties;
+    private final HttpAsyncClientProvider httpAsyncClientProvider;
+    private final ObjectProvider<HttpClientMetrics> httpClientMetricsProvider;
+    private final Map<String, PoolingHttpClientConnectionManager> sharedConnectionManagers = new ConcurrentHashMap<>();
+    private final List<IdleConnectionEvictor> connectionEvictors = new CopyOnWriteArrayList<>();
+    private final List<ConnectionWarmer> connectionWarmers = new CopyOnWriteArrayList<>();
+    private final List<ExecutorService> hedgingExecutors = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService hedgingScheduler = hedgingScheduler();
+    private final ExecutorService bulkExecutor = Executors.newCachedThreadPool(daemonThreadFactory("BulkRequest-"));
 
     /**
      * Creates a default RestTemplate bean configured with standard or custom HTTP
@@ -52,9 +98,40 @@ public class HttpClientConfiguration {
     @Primary
     @Bean("RestTemplate")
     public RestTemplate restTemplate() {
-        return this.getRestTemplate(
-                Objects.requireNonNullElse(httpClientProperties.getServices().get(DEFAULT_REST_TEMPLATE_NAME),
-                        new HttpClientProperties.ServiceProperties()));
+        HttpClientProperties.ServiceProperties serviceProperties = Objects.requireNonNullElse(
+                httpClientProperties.getServices().get(DEFAULT_REST_TEMPLATE_NAME),
+                new HttpClientProperties.ServiceProperties());
+        return this.getRestTemplate(DEFAULT_REST_TEMPLATE_NAME, serviceProperties);
+    }
+
+    /**
+     * Creates a default HttpStreamingClient bean on top of the default
+     * RestTemplate, for downloading large response bodies without buffering them.
+     *
+     * @param restTemplate
+     *            the default RestTemplate
+     * @return an HttpStreamingClient instance
+     */
+    @Bean("HttpStreamingClient")
+    public HttpStreamingClient httpStreamingClient(@Qualifier("RestTemplate") RestTemplate restTemplate) {
+        return new HttpStreamingClient(restTemplate);
+    }
+
+    /**
+     * Creates a default HttpBulkExecutor bean on top of the default RestTemplate,
+     * for calling the service once per item of a collection with bounded
+     * parallelism.
+     *
+     * @param restTemplate
+     *            the default RestTemplate
+     * @return an HttpBulkExecutor instance
+     */
+    @Bean("HttpBulkExecutor")
+    public HttpBulkExecutor httpBulkExecutor(@Qualifier("RestTemplate") RestTemplate restTemplate) {
+        HttpClientProperties.ServiceProperties serviceProperties = Objects.requireNonNullElse(
+                httpClientProperties.getServices().get(DEFAULT_REST_TEMPLATE_NAME),
+                new HttpClientProperties.ServiceProperties());
+        return new HttpBulkExecutor(restTemplate, bulkExecutor, this.getBulkParallelism(serviceProperties));
     }
 
     /**
@@ -62,7 +139,8 @@ public class HttpClientConfiguration {
      * configurations defined in application properties. This is done during the
      * post construction phase to ensure all necessary configurations are loaded.
      * Each custom RestTemplate is registered as a singleton bean in the application
-     * context.
+     * context, together with an HttpStreamingClient and an HttpBulkExecutor built
+     * on top of it.
      */
     @PostConstruct
     public void registerCustomClients() {
@@ -70,24 +148,96 @@ public class HttpClientConfiguration {
             for (Map.Entry<String, HttpClientProperties.ServiceProperties> entry : httpClientProperties.getServices()
                     .entrySet()) {
                 if (!DEFAULT_REST_TEMPLATE_NAME.equals(entry.getKey())) {
-                    RestTemplate restTemplate = this.getRestTemplate(entry.getValue());
+                    RestTemplate restTemplate = this.getRestTemplate(entry.getKey(), entry.getValue());
                     beanFactory.registerSingleton(String.format("%sRestTemplate", entry.getKey()), restTemplate);
+                    beanFactory.registerSingleton(String.format("%sStreamingClient", entry.getKey()),
+                            new HttpStreamingClient(restTemplate));
+                    beanFactory.registerSingleton(String.format("%sBulkExecutor", entry.getKey()), new HttpBulkExecutor(
+                            restTemplate, bulkExecutor, this.getBulkParallelism(entry.getValue())));
                 }
             }
         }
     }
 
+    /**
+     * Warms up the connections of all the services with warm-up enabled, once all
+     * the singletons are created, so that the default and custom RestTemplates
+     * are warmed up together. Services are warmed up in parallel, and startup
+     * waits for them up to their warm-up timeout. Warm-up bypasses the
+     * RestTemplate interceptors, so that coalescing cannot merge the warm-up
+     * requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<ConnectionWarmer> pendingConnectionWarmers = List.copyOf(connectionWarmers);
+        connectionWarmers.clear();
+        if (pendingConnectionWarmers.isEmpty()) {
+            return;
+        }
+
+        ExecutorService warmupExecutor = Executors.newCachedThreadPool(daemonThreadFactory("ConnectionWarmup-"));
+        try {
+            CompletableFuture.allOf(pendingConnectionWarmers.stream()
+                    .map(connectionWarmer -> connectionWarmer.warmUp(warmupExecutor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            warmupExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the maximum parallelism of the bulk calls to a service. It is capped
+     * by the connections per route of the service pool, or by the maximum
+     * concurrent streams per route for HTTP/2 services, the limits enforced by
+     * their HttpClient, and defaults to half of them.
+     *
+     * @param serviceProperties
+     *            the service-specific configuration
+     * @return the maximum parallelism of the bulk calls, at least 1
+     */
+    private int getBulkParallelism(HttpClientProperties.ServiceProperties serviceProperties) {
+        int limit = serviceProperties.getProtocol() == ProtocolConfiguration.Protocol.HTTP2
+                ? serviceProperties.getMaxConcurrentStreams()
+                : ConnectionConfiguration.poolProperties(httpClientProperties, serviceProperties).getMaxPerRoute();
+        Integer maxParallelism = serviceProperties.getBulk().getMaxParallelism();
+        return Math.max(1, maxParallelism != null ? Math.min(maxParallelism, limit) : limit / 2);
+    }
+
     /**
      * Configures and returns a RestTemplate based on the provided service
      * properties. This method sets up interceptors for trace headers and basic
-     * authentication if specified.
+     * authentication if specified, for request metrics when a metrics library is
+     * available, and for concurrency limiting, request coalescing, load
+     * balancing, request compression and hedging when enabled. Requests above the
+     * concurrency limit are rejected before any other work is done, and
+     * coalescing follows the basic authentication interceptor so that the
+     * Authorization header can be part of the request identity. Load balancing
+     * follows coalescing, so that requests are coalesced on their original URI.
+     * The hedging interceptor is always the last one, as each hedged attempt
+     * resumes the chain from it. Rate limiting is applied by the HttpClient of
+     * the service instead, so that each attempt sent takes a permit.
+     * <p>
+     * When lazy initialization is enabled, the HttpClient of the service and its
+     * connection pool are only created on the first request, unless connection
+     * warm-up is enabled for the service.
+     * </p>
      *
+     * @param serviceName
+     *            the service alias, used to tag the metrics
      * @param serviceProperties
      *            the properties used to customize the RestTemplate
      * @return a fully configured RestTemplate instance
      */
-    private RestTemplate getRestTemplate(HttpClientProperties.ServiceProperties serviceProperties) {
+    private RestTemplate getRestTemplate(String serviceName,
+            HttpClientProperties.ServiceProperties serviceProperties) {
         List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
+        httpClientMetricsProvider
+                .ifAvailable(httpClientMetrics -> interceptors.add(httpClientMetrics.requestInterceptor(serviceName)));
+
+        if (serviceProperties.getConcurrencyLimit().isEnabled()) {
+            interceptors.add(new ConcurrencyLimitInterceptor(serviceName, serviceProperties.getConcurrencyLimit()));
+        }
+
         interceptors.add(this.getTraceHeadersInterceptor());
 
         if (serviceProperties.getAuth() != null) {
@@ -95,22 +245,77 @@ public class HttpClientConfiguration {
                     serviceProperties.getAuth().getPwd()));
         }
 
+        if (serviceProperties.getCoalescing().isEnabled()) {
+            interceptors.add(new CoalescingInterceptor(serviceProperties.getCoalescing()));
+        }
+
+        if (!serviceProperties.getLoadBalancing().getEndpoints().isEmpty()) {
+            interceptors.add(new LoadBalancingInterceptor(serviceName, serviceProperties.getLoadBalancing()));
+        }
+
+        if (serviceProperties.getCompression().isRequestCompression()) {
+            interceptors
+                    .add(CompressionConfiguration.requestCompressionInterceptor(serviceProperties.getCompression()));
+        }
+
+        if (serviceProperties.getHedging().isEnabled()) {
+            interceptors.add(new HedgingInterceptor(serviceProperties.getHedging(),
+                    this.hedgingExecutor(serviceName, serviceProperties.getHedging()), hedgingScheduler));
+        }
+
+        Supplier<ClientHttpRequestFactory> requestFactorySupplier = () -> this.getRequestFactory(serviceName,
+                serviceProperties);
+        boolean lazyInit = httpClientProperties.isLazyInit() && !serviceProperties.getWarmup().isEnabled();
         return restTemplateBuilder.interceptors(interceptors)
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(this.httpClient(serviceProperties)))
+                .requestFactory(lazyInit
+                        ? () -> new LazyClientHttpRequestFactory(requestFactorySupplier)
+                        : requestFactorySupplier)
                 .build();
     }
 
+    /**
+     * Creates the request factory matching the protocol configured for the
+     * service. HTTP1 services use the classic HttpClient, while HTTP2 and NEGOTIATE
+     * services are executed on an async HttpClient capable of HTTP/2. Requests of
+     * hedged services can be aborted, so that the losing attempt is stopped.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param serviceProperties
+     *            the service-specific configuration
+     * @return a ClientHttpRequestFactory for the RestTemplate
+     */
+    private ClientHttpRequestFactory getRequestFactory(String serviceName,
+            HttpClientProperties.ServiceProperties serviceProperties) {
+        if (serviceProperties.getProtocol() == ProtocolConfiguration.Protocol.HTTP1) {
+            HttpClient httpClient = this.httpClient(serviceName, serviceProperties,
+                    httpAsyncClientProvider.getRateLimitInterceptor(serviceName, serviceProperties));
+            return serviceProperties.getHedging().isEnabled()
+                    ? RequestAttempt.requestFactory(httpClient)
+                    : new HttpComponentsClientHttpRequestFactory(httpClient);
+        }
+
+        ClientHttpRequestFactory requestFactory = new HttpAsyncClientRequestFactory(
+                httpAsyncClientProvider.getHttpAsyncClient(serviceName, serviceProperties));
+        if (serviceProperties.getWarmup().isEnabled()) {
+            connectionWarmers.add(new ConnectionWarmer(serviceName, serviceProperties.getWarmup(), requestFactory));
+        }
+        return requestFactory;
+    }
+
     /**
      * Creates an interceptor that adds trace headers to outgoing HTTP requests.
-     * These headers can be used for monitoring or tracing request flow.
+     * These headers can be used for monitoring or tracing request flow. Requests
+     * sent outside an HTTP request, such as from schedulers or message listeners,
+     * carry the headers of HeaderContextHolder or a generated RequestID. Requests
+     * whose RequestDeadline is already reached are rejected without being sent.
      *
      * @return a ClientHttpRequestInterceptor that adds trace headers
      */
     private ClientHttpRequestInterceptor getTraceHeadersInterceptor() {
         return (request, body, execution) -> {
-            MultiValueMap<String, String> httpHeaders = HttpTraceHeader
-                    .getMultiValueMapDefaultHttpTraceHeaders(HttpTraceHeader.getHttpServletRequest());
-            request.getHeaders().addAll(httpHeaders);
+            HttpTraceHeader.addDefaultHttpTraceHeaders(request.getHeaders());
+            DeadlineConfiguration.checkDeadline(request.getHeaders());
             return execution.execute(request, body);
         };
     }
@@ -118,24 +323,193 @@ public class HttpClientConfiguration {
     /**
      * Configures and builds an HttpClient with the necessary connection settings.
      * Cookie management is disabled, as interactions are expected to be stateless.
-     * If the service is external, proxy settings are configured accordingly.
+     * When the response cache is enabled for the service, cacheable responses are
+     * served from memory and revalidated with conditional requests once stale.
+     * Compressed responses are decompressed while being read, for the content
+     * encodings accepted by the service. When retries are enabled, transient
+     * failures are retried with exponential backoff within the service retry budget.
+     * When rate limiting is enabled, each attempt waits for a permit after the
+     * retry element, so that retries are counted as well. If the service is
+     * external, proxy settings are configured accordingly. When the service
+     * refers to a shared pool, the connection manager is reused and marked as
+     * shared so that it outlives any single client.
      *
+     * @param serviceName
+     *            the service alias
      * @param serviceConfig
      *            the service-specific configuration for the HttpClient
+     * @param rateLimitInterceptor
+     *            the rate limit of the service, may be null
      * @return a configured HttpClient instance
      */
-    private HttpClient httpClient(HttpClientProperties.ServiceProperties serviceConfig) {
-        HttpClientBuilder httpClientBuilder = HttpClients.custom()
-                .setConnectionManager(ConnectionConfiguration.connectionManager()).disableCookieManagement()
-                .setDefaultRequestConfig(RequestConfiguration.requestConfig(serviceConfig.getRequest()))
+    private HttpClient httpClient(String serviceName, HttpClientProperties.ServiceProperties serviceConfig,
+            RateLimitInterceptor rateLimitInterceptor) {
+        ConnectionConfiguration.Properties poolConfig = ConnectionConfiguration.poolProperties(httpClientProperties,
+                serviceConfig);
+        HttpClientBuilder httpClientBuilder = serviceConfig.getCache().isEnabled()
+                ? CachingHttpClients.custom()
+                        .setCacheConfig(CacheConfiguration.cacheConfig(serviceConfig.getCache()))
+                : HttpClients.custom();
+        httpClientBuilder.disableCookieManagement()
+                .setDefaultRequestConfig(
+                        RequestConfiguration.requestConfig(serviceConfig.getRequest(), poolConfig.getLeaseTimeout()))
                 .useSystemProperties();
 
+        httpClientBuilder.addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "deadline",
+                DeadlineConfiguration.execInterceptor());
+        if (rateLimitInterceptor != null) {
+            httpClientBuilder.addExecInterceptorBefore("deadline", "rate-limit", rateLimitInterceptor);
+        }
+
+        if (serviceConfig.getCompression().isResponseDecompression()) {
+            httpClientBuilder
+                    .setContentDecoderRegistry(CompressionConfiguration.contentDecoders(serviceConfig.getCompression()))
+                    .addExecInterceptorBefore(ChainElement.COMPRESS.name(), "accept-encoding",
+                            CompressionConfiguration.acceptEncodingInterceptor(serviceConfig.getCompression()));
+        } else {
+            httpClientBuilder.disableContentCompression();
+        }
+
+        if (serviceConfig.getRetry().isEnabled()) {
+            httpClientBuilder.setRetryStrategy(new BackoffRetryStrategy(serviceConfig.getRetry()));
+        }
+
+        HttpHost proxy = null;
         if (serviceConfig.isExternal()) {
             BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-            httpClientBuilder
-                    .setProxy(ProxyConfiguration.configProxy(credentialsProvider, httpClientProperties.getProxy()));
+            proxy = ProxyConfiguration.configProxy(credentialsProvider, httpClientProperties.getProxy());
+            httpClientBuilder.setProxy(proxy);
         }
 
-        return httpClientBuilder.build();
+        PoolingHttpClientConnectionManager connectionManager = this.getConnectionManager(serviceName, serviceConfig,
+                poolConfig);
+        ConnectionConfiguration.configRoutes(connectionManager, poolConfig, proxy);
+        if (serviceConfig.getWarmup().isEnabled()) {
+            connectionWarmers
+                    .add(new ConnectionWarmer(serviceName, serviceConfig.getWarmup(), connectionManager, proxy));
+        }
+
+        HttpClientMetrics httpClientMetrics = httpClientMetricsProvider.getIfAvailable();
+        return httpClientBuilder
+                .setConnectionManager(httpClientMetrics != null
+                        ? httpClientMetrics.instrumentConnectionManager(serviceName, connectionManager)
+                        : connectionManager)
+                .setConnectionManagerShared(serviceConfig.getSharedPool() != null).build();
+    }
+
+    /**
+     * Returns the connection manager for the given service. A new pool is created
+     * for services with their own pool settings, while services referring to a
+     * shared pool receive the single connection manager registered under that
+     * name.
+     *
+     * @param serviceName
+     *            the service alias, naming the pool when it is not shared
+     * @param serviceConfig
+     *            the service-specific configuration
+     * @param poolConfig
+     *            the pool properties resolved for the service
+     * @return the connection manager to be used by the service HttpClient
+     */
+    private PoolingHttpClientConnectionManager getConnectionManager(String serviceName,
+            HttpClientProperties.ServiceProperties serviceConfig, ConnectionConfiguration.Properties poolConfig) {
+        if (serviceConfig.getSharedPool() == null) {
+            return this.createConnectionManager(serviceName, poolConfig);
+        }
+
+        return sharedConnectionManagers.computeIfAbsent(serviceConfig.getSharedPool(),
+                name -> this.createConnectionManager(name, poolConfig));
+    }
+
+    /**
+     * Creates a connection manager and, when eviction is configured, starts the
+     * idle connection evictor that keeps its pool free of stale connections. The
+     * pool is published to the metrics library, if any, under the given name.
+     *
+     * @param poolName
+     *            the name of the pool
+     * @param poolConfig
+     *            the pool properties to apply
+     * @return a new connection manager
+     */
+    private PoolingHttpClientConnectionManager createConnectionManager(String poolName,
+            ConnectionConfiguration.Properties poolConfig) {
+        PoolingHttpClientConnectionManager connectionManager = ConnectionConfiguration.connectionManager(poolConfig,
+                httpAsyncClientProvider.getTlsStrategy(), httpAsyncClientProvider.getDnsResolver());
+        httpClientMetricsProvider
+                .ifAvailable(httpClientMetrics -> httpClientMetrics.bindConnectionPool(poolName, connectionManager));
+
+        IdleConnectionEvictor connectionEvictor = ConnectionConfiguration.idleConnectionEvictor(connectionManager,
+                poolConfig);
+        if (connectionEvictor != null) {
+            connectionEvictors.add(connectionEvictor);
+        }
+
+        return connectionManager;
+    }
+
+    /**
+     * Creates the executor sending the hedged attempts of a service. It has at
+     * most one thread per hedged attempt allowed in flight and no queue, so that
+     * hedges are skipped rather than delayed once all its threads are busy.
+     *
+     * @param serviceName
+     *            the service alias, naming the threads
+     * @param hedgingProperties
+     *            the hedging properties of the service
+     * @return the executor of the hedged attempts
+     */
+    private ExecutorService hedgingExecutor(String serviceName, HedgingInterceptor.Properties hedgingProperties) {
+        ThreadPoolExecutor hedgingExecutor = new ThreadPoolExecutor(0,
+                Math.max(1, hedgingProperties.getMaxConcurrency()), 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                daemonThreadFactory(String.format("HedgedRequest-%s-", serviceName)));
+        hedgingExecutors.add(hedgingExecutor);
+        return hedgingExecutor;
+    }
+
+    /**
+     * Creates the scheduler triggering the hedged attempts of all the services
+     * once their hedging delay elapsed. Its single thread only hands the attempts
+     * over to the hedging executors.
+     *
+     * @return the scheduler of the hedged attempts
+     */
+    private static ScheduledExecutorService hedgingScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                daemonThreadFactory("HedgingScheduler-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Creates a factory of daemon threads, used by the executors running hedged
+     * requests, bulk calls and connection warm-ups.
+     *
+     * @param threadNamePrefix
+     *            the prefix of the thread names
+     * @return a ThreadFactory for the executor
+     */
+    private static CustomizableThreadFactory daemonThreadFactory(String threadNamePrefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Stops the idle connection evictors and closes the shared connection managers
+     * when the application context shuts down, since the latter are not owned by
+     * any single HttpClient. The hedging and bulk executors are shut down as well.
+     */
+    @PreDestroy
+    public void shutdown() {
+        connectionEvictors.forEach(IdleConnectionEvictor::shutdown);
+        connectionEvictors.clear();
+
+        sharedConnectionManagers.values().forEach(connectionManager -> connectionManager.close(CloseMode.GRACEFUL));
+        sharedConnectionManagers.clear();
+
+        hedgingScheduler.shutdownNow();
+        hedgingExecutors.forEach(ExecutorService::shutdownNow);
+        bulkExecutor.shutdownNow();
     }
 }
@@ -0,0 +1,65 @@
+package com.erebelo.spring.common.http;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * Instrumentation hooks applied by {@link HttpClientConfiguration} and
+ * {@link HttpAsyncClientProvider} while the HTTP clients are created. It keeps the configuration free of any
+ * metrics library, so implementations are only registered when their library
+ * is available on the classpath.
+ */
+public interface HttpClientMetrics {
+
+    /**
+     * Publishes the leased, available, pending and maximum connections of a
+     * connection pool.
+     *
+     * @param poolName
+     *            the service alias owning the pool, or the shared pool name
+     * @param connPoolControl
+     *            the connection pool to observe
+     */
+    void bindConnectionPool(String poolName, ConnPoolControl<HttpRoute> connPoolControl);
+
+    /**
+     * Instruments the connection manager used by the HttpClient of a service,
+     * measuring how long each request waits to lease a connection from the pool
+     * before it is sent.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param connectionManager
+     *            the connection manager of the service
+     * @return the connection manager to be used by the service HttpClient
+     */
+    HttpClientConnectionManager instrumentConnectionManager(String serviceName,
+            HttpClientConnectionManager connectionManager);
+
+    /**
+     * Instruments the connection manager used by an async HttpClient of a
+     * service, measuring how long each request waits to lease a connection from
+     * the pool before it is sent.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param connectionManager
+     *            the async connection manager of the service
+     * @return the connection manager to be used by the service async HttpClient
+     */
+    AsyncClientConnectionManager instrumentAsyncConnectionManager(String serviceName,
+            AsyncClientConnectionManager connectionManager);
+
+    /**
+     * Creates an interceptor that records the latency, status and exception of
+     * every request sent by the RestTemplate of a service.
+     *
+     * @param serviceName
+     *            the service alias
+     * @return a ClientHttpRequestInterceptor recording the request metrics
+     */
+    ClientHttpRequestInterceptor requestInterceptor(String serviceName);
+}
@@ -1,6 +1,19 @@
 package com.erebelo.spring.common.http;
 
+import com.erebelo.spring.common.http.support.BackoffRetryStrategy;
+import com.erebelo.spring.common.http.support.CacheConfiguration;
+import com.erebelo.spring.common.http.support.CachingDnsResolver;
+import com.erebelo.spring.common.http.support.CoalescingInterceptor;
+import com.erebelo.spring.common.http.support.CompressionConfiguration;
+import com.erebelo.spring.common.http.support.ConcurrencyLimitInterceptor;
+import com.erebelo.spring.common.http.support.ConnectionConfiguration;
+import com.erebelo.spring.common.http.support.ConnectionWarmer;
+import com.erebelo.spring.common.http.support.HedgingInterceptor;
+import com.erebelo.spring.common.http.support.LoadBalancingInterceptor;
+import com.erebelo.spring.common.http.support.ProtocolConfiguration;
+import com.erebelo.spring.common.http.support.RateLimitInterceptor;
 import com.erebelo.spring.common.http.support.RequestConfiguration;
+import com.erebelo.spring.common.http.support.TlsConfiguration;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.Data;
@@ -26,6 +39,21 @@ public class HttpClientProperties {
     // Properties related to proxy configuration for HTTP requests.
     private ProxyProperties proxy = new ProxyProperties();
 
+    // A map of named connection pools that can be shared by multiple services
+    // through the 'shared-pool' service property
+    private Map<String, ConnectionConfiguration.Properties> sharedPools = new HashMap<>();
+
+    // TLS properties shared by all the connection pools, so that TLS sessions can
+    // be resumed across pools
+    private TlsConfiguration.Properties tls = new TlsConfiguration.Properties();
+
+    // DNS caching properties shared by all the connection pools
+    private CachingDnsResolver.Properties dns = new CachingDnsResolver.Properties();
+
+    // Whether the HttpClient and connection pool of each service are only created
+    // on its first request, instead of at startup
+    private boolean lazyInit;
+
     /**
      * Nested class representing properties for each HTTP service.
      */
@@ -34,6 +62,20 @@ public class HttpClientProperties {
         private boolean external;
         private AuthProperties auth;
         private RequestConfiguration.Properties request = new RequestConfiguration.Properties();
+        private ConnectionConfiguration.Properties pool = new ConnectionConfiguration.Properties();
+        private String sharedPool;
+        private ProtocolConfiguration.Protocol protocol = ProtocolConfiguration.Protocol.HTTP1;
+        private int maxConcurrentStreams = 100;
+        private CacheConfiguration.Properties cache = new CacheConfiguration.Properties();
+        private HedgingInterceptor.Properties hedging = new HedgingInterceptor.Properties();
+        private BackoffRetryStrategy.Properties retry = new BackoffRetryStrategy.Properties();
+        private ConcurrencyLimitInterceptor.Properties concurrencyLimit = new ConcurrencyLimitInterceptor.Properties();
+        private CoalescingInterceptor.Properties coalescing = new CoalescingInterceptor.Properties();
+        private CompressionConfiguration.Properties compression = new CompressionConfiguration.Properties();
+        private ConnectionWarmer.Properties warmup = new ConnectionWarmer.Properties();
+        private LoadBalancingInterceptor.Properties loadBalancing = new LoadBalancingInterceptor.Properties();
+        private HttpBulkExecutor.Properties bulk = new HttpBulkExecutor.Properties();
+        private RateLimitInterceptor.Properties rateLimit = new RateLimitInterceptor.Properties();
     }
 
     /**
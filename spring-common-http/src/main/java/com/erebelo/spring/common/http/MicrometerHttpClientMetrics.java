@@ -0,0 +1,303 @@
+package com.erebelo.spring.common.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer implementation of {@link HttpClientMetrics}. Meters are registered
+ * in the application MeterRegistry or, if there is none, in the Micrometer
+ * global registry.
+ * <p>
+ * The following meters are published:
+ * <ul>
+ * <li>http.client.pool.leased, http.client.pool.available,
+ * http.client.pool.pending and http.client.pool.max gauges, tagged with the
+ * pool name and summed over the classic and async pools of that name</li>
+ * <li>http.client.connection.acquire timer, tagged with the service name, with
+ * p50, p99 and p999 percentiles</li>
+ * <li>http.client.service.requests timer, tagged with the service name, method,
+ * status and exception, with histogram buckets so that percentiles can be
+ * aggregated across instances by the monitoring system</li>
+ * </ul>
+ * Request timers are registered once per tag set and reused by the following
+ * requests. This class is only registered when micrometer-core is on the
+ * classpath.
+ * </p>
+ */
+@Component
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class MicrometerHttpClientMetrics implements HttpClientMetrics {
+
+    public static final String POOL_METRIC_PREFIX = "http.client.pool.";
+    public static final String CONNECTION_ACQUIRE_METRIC = "http.client.connection.acquire";
+    public static final String REQUESTS_METRIC = "http.client.service.requests";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final Map<RequestTags, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Map<String, List<ConnPoolControl<HttpRoute>>> connectionPools = new ConcurrentHashMap<>();
+
+    public MicrometerHttpClientMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    /**
+     * Publishes the pool gauges. Pools bound under the same name, such as the
+     * classic and async pools of a service, are summed up in the same gauges.
+     */
+    @Override
+    public void bindConnectionPool(String poolName, ConnPoolControl<HttpRoute> connPoolControl) {
+        connectionPools.computeIfAbsent(poolName, this::registerPoolGauges).add(connPoolControl);
+    }
+
+    /**
+     * Measures the time between leasing a connection from the pool and getting
+     * it, which is the time spent waiting for a free connection. Establishing new
+     * connections happens afterwards and is not measured. Requests served by the
+     * response cache never lease a connection and are not measured either.
+     */
+    @Override
+    public HttpClientConnectionManager instrumentConnectionManager(String serviceName,
+            HttpClientConnectionManager connectionManager) {
+        return new TimedConnectionManager(connectionManager, this.acquireTimer(serviceName));
+    }
+
+    /**
+     * Measures the time between leasing a connection from the async pool and
+     * getting it, like {@link #instrumentConnectionManager}, under the same
+     * timer.
+     */
+    @Override
+    public AsyncClientConnectionManager instrumentAsyncConnectionManager(String serviceName,
+            AsyncClientConnectionManager connectionManager) {
+        return new TimedAsyncConnectionManager(connectionManager, this.acquireTimer(serviceName));
+    }
+
+    @Override
+    public ClientHttpRequestInterceptor requestInterceptor(String serviceName) {
+        return (request, body, execution) -> {
+            long startTime = System.nanoTime();
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                this.recordRequest(serviceName, request.getMethod().name(),
+                        String.valueOf(response.getStatusCode().value()), "none", startTime);
+                return response;
+            } catch (IOException | RuntimeException e) {
+                this.recordRequest(serviceName, request.getMethod().name(), "CLIENT_ERROR",
+                        e.getClass().getSimpleName(), startTime);
+                throw e;
+            }
+        };
+    }
+
+    private List<ConnPoolControl<HttpRoute>> registerPoolGauges(String poolName) {
+        List<ConnPoolControl<HttpRoute>> pools = new CopyOnWriteArrayList<>();
+        Tags tags = Tags.of("pool", poolName);
+
+        this.registerPoolGauge("leased", "Connections leased to requests", pools, PoolStats::getLeased, tags);
+        this.registerPoolGauge("available", "Idle connections available for reuse", pools, PoolStats::getAvailable,
+                tags);
+        this.registerPoolGauge("pending", "Requests waiting for a connection", pools, PoolStats::getPending, tags);
+        this.registerPoolGauge("max", "Maximum number of connections", pools, PoolStats::getMax, tags);
+        return pools;
+    }
+
+    private void registerPoolGauge(String name, String description, List<ConnPoolControl<HttpRoute>> pools,
+            ToIntFunction<PoolStats> value, Tags tags) {
+        Gauge.builder(POOL_METRIC_PREFIX + name, pools,
+                poolList -> poolList.stream().mapToInt(pool -> value.applyAsInt(pool.getTotalStats())).sum())
+                .description(description).tags(tags).strongReference(true).register(meterRegistry);
+    }
+
+    private Timer acquireTimer(String serviceName) {
+        return Timer.builder(CONNECTION_ACQUIRE_METRIC)
+                .description("Time spent waiting to lease a connection from the pool").tags("service", serviceName)
+                .publishPercentiles(PERCENTILES).register(meterRegistry);
+    }
+
+    private void recordRequest(String serviceName, String method, String status, String exception, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        requestTimers.computeIfAbsent(new RequestTags(serviceName, method, status, exception),
+                tags -> Timer.builder(REQUESTS_METRIC).description("Latency of the requests sent to the service")
+                        .tags("service", tags.serviceName(), "method", tags.method(), "status", tags.status(),
+                                "exception", tags.exception())
+                        .publishPercentileHistogram().register(meterRegistry))
+                .record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tag set of a request timer.
+     */
+    private record RequestTags(String serviceName, String method, String status, String exception) {
+    }
+
+    /**
+     * HttpClientConnectionManager delegating to the pool of a service and
+     * recording how long each lease waits for a connection.
+     */
+    @RequiredArgsConstructor
+    private static class TimedConnectionManager implements HttpClientConnectionManager {
+
+        private final HttpClientConnectionManager connectionManager;
+        private final Timer acquireTimer;
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            long startTime = System.nanoTime();
+            LeaseRequest leaseRequest = connectionManager.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    try {
+                        return leaseRequest.get(timeout);
+                    } finally {
+                        acquireTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return leaseRequest.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+            connectionManager.release(endpoint, newState, validDuration);
+        }
+
+        @Override
+        public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context)
+                throws IOException {
+            connectionManager.connect(endpoint, connectTimeout, context);
+        }
+
+        @Override
+        public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+            connectionManager.upgrade(endpoint, context);
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            connectionManager.close(closeMode);
+        }
+
+        @Override
+        public void close() throws IOException {
+            connectionManager.close();
+        }
+    }
+
+    /**
+     * AsyncClientConnectionManager delegating to the async pool of a service and
+     * recording how long each lease waits for a connection.
+     */
+    @RequiredArgsConstructor
+    private static class TimedAsyncConnectionManager implements AsyncClientConnectionManager {
+
+        private final AsyncClientConnectionManager connectionManager;
+        private final Timer acquireTimer;
+
+        @Override
+        public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state, Timeout requestTimeout,
+                FutureCallback<AsyncConnectionEndpoint> callback) {
+            long startTime = System.nanoTime();
+            return connectionManager.lease(id, route, state, requestTimeout, new FutureCallback<>() {
+
+                @Override
+                public void completed(AsyncConnectionEndpoint endpoint) {
+                    acquireTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+                    if (callback != null) {
+                        callback.completed(endpoint);
+                    }
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    acquireTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+                    if (callback != null) {
+                        callback.failed(ex);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    if (callback != null) {
+                        callback.cancelled();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void release(AsyncConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+            connectionManager.release(endpoint, newState, validDuration);
+        }
+
+        @Override
+        public Future<AsyncConnectionEndpoint> connect(AsyncConnectionEndpoint endpoint,
+                ConnectionInitiator connectionInitiator, Timeout connectTimeout, Object attachment,
+                HttpContext context, FutureCallback<AsyncConnectionEndpoint> callback) {
+            return connectionManager.connect(endpoint, connectionInitiator, connectTimeout, attachment, context,
+                    callback);
+        }
+
+        @Override
+        public void upgrade(AsyncConnectionEndpoint endpoint, Object attachment, HttpContext context) {
+            connectionManager.upgrade(endpoint, attachment, context);
+        }
+
+        @Override
+        public void upgrade(AsyncConnectionEndpoint endpoint, Object attachment, HttpContext context,
+                FutureCallback<AsyncConnectionEndpoint> callback) {
+            connectionManager.upgrade(endpoint, attachment, context, callback);
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            connectionManager.close(closeMode);
+        }
+
+        @Override
+        public void close() throws IOException {
+            connectionManager.close();
+        }
+    }
+}
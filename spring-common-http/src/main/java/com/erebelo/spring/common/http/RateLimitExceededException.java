@@ -0,0 +1,17 @@
+package com.erebelo.spring.common.http;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Exception thrown when a request is rejected because it exceeds the rate limit
+ * configured for a service. The request is not sent, so it can be safely retried
+ * later or served from a fallback.
+ */
+public class RateLimitExceededException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
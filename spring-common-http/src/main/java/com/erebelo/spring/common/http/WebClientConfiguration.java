@@ -0,0 +1,130 @@
+package com.erebelo.spring.common.http;
+
+import com.erebelo.spring.common.http.support.DeadlineConfiguration;
+import com.erebelo.spring.common.utils.http.HttpTraceHeader;
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.reactive.HttpComponentsClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuration class for setting up non-blocking HTTP client beans. It
+ * provides a default WebClient and custom WebClients based on the same
+ * application properties used for the RestTemplates, backed by an Apache
+ * HttpClient 5 async client so that outbound calls do not hold a thread while
+ * waiting for the response.
+ * <p>
+ * This class is conditionally enabled based on the property:
+ *
+ * <pre>
+ * spring.common.http-client.web-client.enabled=true
+ * </pre>
+ *
+ * If the property is not explicitly set, it defaults to **disabled**. It also
+ * requires spring-webflux and httpcore5-reactive on the classpath.
+ * </p>
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnClass(name = {"org.springframework.web.reactive.function.client.WebClient",
+        "org.apache.hc.core5.reactive.ReactiveResponseConsumer"})
+@ConditionalOnProperty(prefix = "spring.common", name = "http-client.web-client.enabled", havingValue = "true")
+public class WebClientConfiguration {
+
+    private final ConfigurableBeanFactory beanFactory;
+    private final ObjectProvider<WebClient.Builder> webClientBuilderProvider;
+    private final HttpClientProperties httpClientProperties;
+    private final HttpAsyncClientProvider httpAsyncClientProvider;
+
+    /**
+     * Creates a default WebClient bean configured with standard or custom HTTP
+     * client settings, using the properties of the default service.
+     *
+     * @return a configured WebClient instance
+     */
+    @Primary
+    @Bean("WebClient")
+    public WebClient webClient() {
+        return this.getWebClient(HttpClientConfiguration.DEFAULT_REST_TEMPLATE_NAME, Objects.requireNonNullElse(
+                httpClientProperties.getServices().get(HttpClientConfiguration.DEFAULT_REST_TEMPLATE_NAME),
+                new HttpClientProperties.ServiceProperties()));
+    }
+
+    /**
+     * Registers additional WebClient instances for custom services based on
+     * configurations defined in application properties. Each custom WebClient is
+     * registered as a singleton bean named after the service alias.
+     */
+    @PostConstruct
+    public void registerCustomClients() {
+        if (httpClientProperties.getServices() != null) {
+            for (Map.Entry<String, HttpClientProperties.ServiceProperties> entry : httpClientProperties.getServices()
+                    .entrySet()) {
+                if (!HttpClientConfiguration.DEFAULT_REST_TEMPLATE_NAME.equals(entry.getKey())) {
+                    WebClient webClient = this.getWebClient(entry.getKey(), entry.getValue());
+                    beanFactory.registerSingleton(String.format("%sWebClient", entry.getKey()), webClient);
+                }
+            }
+        }
+    }
+
+    /**
+     * Configures and returns a WebClient based on the provided service properties.
+     * This method sets up a filter for trace headers and the basic authentication
+     * header if specified. The async HttpClient applies the rate limit of the
+     * service, shared with its RestTemplate.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param serviceProperties
+     *            the properties used to customize the WebClient
+     * @return a fully configured WebClient instance
+     */
+    private WebClient getWebClient(String serviceName, HttpClientProperties.ServiceProperties serviceProperties) {
+        WebClient.Builder webClientBuilder = webClientBuilderProvider.getIfAvailable(WebClient::builder).clone()
+                .clientConnector(new HttpComponentsClientHttpConnector(
+                        httpAsyncClientProvider.getHttpAsyncClient(serviceName, serviceProperties)))
+                .filter(this.getTraceHeadersFilter());
+
+        if (serviceProperties.getAuth() != null) {
+            webClientBuilder.defaultHeaders(headers -> headers.setBasicAuth(serviceProperties.getAuth().getUser(),
+                    serviceProperties.getAuth().getPwd()));
+        }
+
+        return webClientBuilder.build();
+    }
+
+    /**
+     * Creates a filter that adds trace headers to outgoing HTTP requests. The
+     * headers are resolved when the request is subscribed to, so the exchange must
+     * be started from the thread holding the request context; otherwise the
+     * headers of HeaderContextHolder or a generated RequestID are sent. Requests
+     * whose RequestDeadline is already reached fail without being sent.
+     *
+     * @return an ExchangeFilterFunction that adds trace headers
+     */
+    private ExchangeFilterFunction getTraceHeadersFilter() {
+        return (request, next) -> {
+            ClientRequest tracedRequest = ClientRequest.from(request)
+                    .headers(HttpTraceHeader::addDefaultHttpTraceHeaders).build();
+            try {
+                DeadlineConfiguration.checkDeadline(tracedRequest.headers());
+            } catch (DeadlineExceededException e) {
+                return Mono.error(e);
+            }
+            return next.exchange(tracedRequest);
+        };
+    }
+}
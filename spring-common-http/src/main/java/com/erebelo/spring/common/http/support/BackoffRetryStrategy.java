@@ -0,0 +1,165 @@
+package com.erebelo.spring.common.http.support;
+
+import com.erebelo.spring.common.utils.http.RequestDeadline;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.net.ssl.SSLException;
+import lombok.Data;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * HttpRequestRetryStrategy that retries transient failures with exponential
+ * backoff and full jitter, bounded by a retry budget.
+ * <p>
+ * I/O failures are only retried for idempotent requests, as in the HttpClient
+ * default strategy. Retryable status codes are retried for idempotent requests
+ * as well, except for 429 and 503, which guarantee the request was not
+ * processed. A Retry-After header sent by the server takes precedence over the
+ * computed backoff, as long as it does not exceed the maximum backoff or the
+ * time left before the request deadline; the response is returned as is
+ * otherwise, rather than holding the calling thread for longer than allowed.
+ * </p>
+ * <p>
+ * Every request deposits a share of a token in the retry budget, and every
+ * retry withdraws a whole token, so that retries stay capped at a percentage of
+ * the live traffic and an outage does not turn into a retry storm.
+ * </p>
+ */
+public class BackoffRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+    private static final Set<Integer> UNPROCESSED_STATUS_CODES = Set.of(HttpStatus.SC_TOO_MANY_REQUESTS,
+            HttpStatus.SC_SERVICE_UNAVAILABLE);
+
+    private final Properties properties;
+    private final RequestBudget budget;
+
+    public BackoffRetryStrategy(Properties properties) {
+        super(properties.getMaxAttempts() - 1, TimeValue.ofMilliseconds(properties.getInitialBackoff()),
+                properties.getNonRetryableExceptions(), properties.getRetryableStatusCodes());
+        this.properties = properties;
+        this.budget = new RequestBudget(properties.getBudgetRatio(), properties.getMaxBudget());
+    }
+
+    @Override
+    public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        if (execCount == 1) {
+            budget.deposit();
+        }
+        return super.retryRequest(request, exception, execCount, context) && budget.tryWithdraw();
+    }
+
+    @Override
+    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+        if (execCount == 1) {
+            budget.deposit();
+        }
+        if (!super.retryRequest(response, execCount, context)) {
+            return false;
+        }
+
+        HttpRequest request = HttpCoreContext.castOrCreate(context).getRequest();
+        if (!UNPROCESSED_STATUS_CODES.contains(response.getCode())
+                && (request == null || !this.handleAsIdempotent(request))) {
+            return false;
+        }
+        if (response.containsHeader(HttpHeaders.RETRY_AFTER)
+                && !this.canWait(super.getRetryInterval(response, execCount, context), request)) {
+            return false;
+        }
+        return budget.tryWithdraw();
+    }
+
+    @Override
+    public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+        if (response.containsHeader(HttpHeaders.RETRY_AFTER)) {
+            TimeValue retryAfter = super.getRetryInterval(response, execCount, context);
+            return retryAfter.toMilliseconds() > properties.getMaxBackoff()
+                    ? TimeValue.ofMilliseconds(properties.getMaxBackoff())
+                    : retryAfter;
+        }
+        return this.backoff(execCount);
+    }
+
+    @Override
+    public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount,
+            HttpContext context) {
+        return this.backoff(execCount);
+    }
+
+    /**
+     * Checks whether the interval requested by the server can be waited for: it
+     * must not exceed the maximum backoff, nor the time left before the deadline
+     * of the request, if any.
+     *
+     * @param retryAfter
+     *            the interval sent in the Retry-After header
+     * @param request
+     *            the request to retry, possibly null
+     * @return true if the retry can wait for the interval
+     */
+    private boolean canWait(TimeValue retryAfter, HttpRequest request) {
+        if (retryAfter.toMilliseconds() > properties.getMaxBackoff()) {
+            return false;
+        }
+
+        Header header = request != null ? request.getFirstHeader(RequestDeadline.REQUEST_DEADLINE_HEADER) : null;
+        Long deadline = header != null ? RequestDeadline.parse(header.getValue()) : null;
+        return deadline == null || System.currentTimeMillis() + retryAfter.toMilliseconds() < deadline;
+    }
+
+    /**
+     * Computes the full jitter backoff of a retry: a random interval between zero
+     * and the exponential backoff of the attempt, capped by the maximum backoff.
+     *
+     * @param execCount
+     *            the number of attempts already made
+     * @return the interval to wait before the retry
+     */
+    private TimeValue backoff(int execCount) {
+        double exponentialBackoff = properties.getInitialBackoff()
+                * Math.pow(properties.getMultiplier(), execCount - 1.0);
+        long maxInterval = (long) Math.min(exponentialBackoff, properties.getMaxBackoff());
+        return TimeValue.ofMilliseconds(ThreadLocalRandom.current().nextLong(maxInterval + 1));
+    }
+
+    /**
+     * A data class that holds retry properties. Retries are disabled by default,
+     * in which case the HttpClient default strategy applies. Backoff values are
+     * expressed in milliseconds. The budget ratio bounds the share of requests that
+     * can be retried, and the maximum budget the retries allowed in a burst, which
+     * is also the initial budget. The non-retryable exceptions default to the ones of the
+     * HttpClient default strategy, which include timeouts.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private int maxAttempts = 3;
+        private long initialBackoff = 100L;
+        private long maxBackoff = 2000L;
+        private double multiplier = 2.0;
+        private Set<Integer> retryableStatusCodes = new HashSet<>(
+                List.of(HttpStatus.SC_TOO_MANY_REQUESTS, HttpStatus.SC_BAD_GATEWAY,
+                        HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_GATEWAY_TIMEOUT));
+        private Set<Class<? extends IOException>> nonRetryableExceptions = new HashSet<>(
+                List.of(InterruptedIOException.class, UnknownHostException.class, ConnectException.class,
+                        ConnectionClosedException.class, NoRouteToHostException.class, SSLException.class));
+        private double budgetRatio = 0.1;
+        private int maxBudget = 10;
+    }
+}
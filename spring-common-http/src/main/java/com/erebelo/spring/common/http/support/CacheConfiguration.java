@@ -0,0 +1,42 @@
+package com.erebelo.spring.common.http.support;
+
+import lombok.Data;
+import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.impl.cache.CacheConfig;
+
+/**
+ * Utility class for configuring the in-memory HTTP response cache. Cached
+ * responses are kept in a bounded store that evicts the least recently used
+ * entries first, honour the Cache-Control directives of the responses, and are
+ * revalidated with conditional requests (If-None-Match / If-Modified-Since)
+ * once they become stale.
+ */
+@UtilityClass
+public class CacheConfiguration {
+
+    /**
+     * Creates a CacheConfig instance based on the provided properties. The cache
+     * is configured as a private cache, as each one belongs to a single service
+     * client and may hold responses to authenticated requests.
+     *
+     * @param properties
+     *            the cache settings to apply
+     * @return a configured CacheConfig instance
+     */
+    public static CacheConfig cacheConfig(Properties properties) {
+        return CacheConfig.custom().setSharedCache(false).setMaxCacheEntries(properties.getMaxEntries())
+                .setMaxObjectSize(properties.getMaxObjectSize()).build();
+    }
+
+    /**
+     * A data class that holds response cache properties. Caching is disabled by
+     * default. The maximum object size is expressed in bytes, so the memory held
+     * by the cache is bounded by the number of entries times that size.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private int maxEntries = 1000;
+        private long maxObjectSize = 8192L;
+    }
+}
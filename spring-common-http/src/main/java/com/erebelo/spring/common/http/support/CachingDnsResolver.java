@@ -0,0 +1,185 @@
+package com.erebelo.spring.common.http.support;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * DnsResolver caching host resolutions for a configurable time, independently
+ * of the JVM resolver settings, and spreading new connections across all the
+ * addresses of a host.
+ * <p>
+ * Successful resolutions are cached for the TTL and failed ones for the
+ * negative TTL. Entries used after their refresh age are refreshed in the
+ * background while the cached addresses keep being served, so that requests
+ * only wait for a resolution the first time a host is used or after its entry
+ * expired. A failed refresh keeps the previous addresses until they expire.
+ * </p>
+ * <p>
+ * Each resolution returns the addresses of the host rotated by one position,
+ * so that the connection operator, which connects to the first reachable
+ * address, opens successive connections to successive addresses (round-robin).
+ * </p>
+ * <p>
+ * The resolver owns the thread refreshing the entries, which is stopped by
+ * {@link #shutdown()} once the pools using the resolver are closed. Entries
+ * are no longer refreshed after that, but keep being served until they expire.
+ * </p>
+ */
+@Log4j2
+public class CachingDnsResolver implements DnsResolver {
+
+    private final Properties properties;
+    private final DnsResolver delegate;
+    private final Executor refreshExecutor;
+    private final Map<String, CacheEntry> cacheEntries = new ConcurrentHashMap<>();
+
+    public CachingDnsResolver(Properties properties) {
+        this(properties, SystemDefaultDnsResolver.INSTANCE, Executors.newSingleThreadExecutor(refreshThreadFactory()));
+    }
+
+    CachingDnsResolver(Properties properties, DnsResolver delegate, Executor refreshExecutor) {
+        this.properties = properties;
+        this.delegate = delegate;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = System.nanoTime();
+        CacheEntry cacheEntry = cacheEntries.get(host);
+
+        if (cacheEntry == null || cacheEntry.isExpired(now)) {
+            cacheEntry = this.lookup(host);
+            cacheEntries.put(host, cacheEntry);
+        } else if (cacheEntry.isRefreshable(now) && cacheEntry.refreshing.compareAndSet(false, true)) {
+            this.refresh(host, cacheEntry);
+        }
+
+        return cacheEntry.addresses();
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+
+    /**
+     * Stops the thread refreshing the entries in the background.
+     */
+    public void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void refresh(String host, CacheEntry cacheEntry) {
+        try {
+            refreshExecutor.execute(() -> {
+                CacheEntry refreshedEntry = this.lookup(host);
+                if (refreshedEntry.failure != null) {
+                    log.debug("Failed to refresh the addresses of host '{}', keeping the cached ones", host,
+                            refreshedEntry.failure);
+                    cacheEntry.refreshing.set(false);
+                } else {
+                    cacheEntries.replace(host, cacheEntry, refreshedEntry);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The resolver was shut down, the cached addresses are served until they expire
+            cacheEntry.refreshing.set(false);
+        }
+    }
+
+    private CacheEntry lookup(String host) {
+        long now = System.nanoTime();
+        try {
+            return new CacheEntry(delegate.resolve(host), null,
+                    now + TimeUnit.MILLISECONDS.toNanos(properties.getTtl()),
+                    now + TimeUnit.MILLISECONDS.toNanos(properties.getRefreshAfter()));
+        } catch (UnknownHostException e) {
+            long expiresAt = now + TimeUnit.MILLISECONDS.toNanos(properties.getNegativeTtl());
+            return new CacheEntry(null, e, expiresAt, expiresAt);
+        }
+    }
+
+    private static CustomizableThreadFactory refreshThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("DnsRefresh-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Cached resolution of a host, either its addresses or the failure.
+     */
+    private static final class CacheEntry {
+
+        private final InetAddress[] addresses;
+        private final UnknownHostException failure;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AtomicInteger nextAddress = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CacheEntry(InetAddress[] addresses, UnknownHostException failure, long expiresAt, long refreshAt) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        private boolean isRefreshable(long now) {
+            return failure == null && now - refreshAt >= 0;
+        }
+
+        /**
+         * Returns the addresses starting at the next address in turn.
+         */
+        private InetAddress[] addresses() throws UnknownHostException {
+            if (failure != null) {
+                throw new UnknownHostException(failure.getMessage());
+            }
+            if (addresses.length < 2) {
+                return addresses.clone();
+            }
+
+            InetAddress[] rotatedAddresses = new InetAddress[addresses.length];
+            int offset = Math.floorMod(nextAddress.getAndIncrement(), addresses.length);
+            for (int i = 0; i < addresses.length; i++) {
+                rotatedAddresses[i] = addresses[(offset + i) % addresses.length];
+            }
+            return rotatedAddresses;
+        }
+    }
+
+    /**
+     * A data class that holds DNS caching properties. Caching is disabled by
+     * default, in which case the JVM resolver is used. Entries used after the
+     * refresh age are refreshed in the background, which should therefore be
+     * lower than the TTL. All durations are expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private long ttl = 60000L;
+        private long negativeTtl = 5000L;
+        private long refreshAfter = 45000L;
+    }
+}
@@ -0,0 +1,158 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StreamUtils;
+
+/**
+ * ClientHttpRequestInterceptor that coalesces concurrent identical GET and HEAD
+ * requests (single flight). The first request is sent to the service, while
+ * identical requests arriving before its response wait for it instead of being
+ * sent as well. The response is buffered and every waiting request receives its
+ * own copy of it, so that a burst of cache misses results in a single request
+ * to the service.
+ * <p>
+ * Requests are identical when they share the method, the URI and the values of
+ * the configured varying headers. Any other header, such as the trace headers,
+ * is taken from the request actually sent.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class CoalescingInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> COALESCED_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+
+    private final Properties properties;
+    private final Map<RequestKey, CompletableFuture<CoalescedResponse>> inFlightRequests = new ConcurrentHashMap<>();
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+            @NonNull ClientHttpRequestExecution execution) throws IOException {
+        if (!COALESCED_METHODS.contains(request.getMethod())) {
+            return execution.execute(request, body);
+        }
+
+        RequestKey requestKey = this.requestKey(request);
+        CompletableFuture<CoalescedResponse> leaderResponse = new CompletableFuture<>();
+        CompletableFuture<CoalescedResponse> inFlightResponse = inFlightRequests.putIfAbsent(requestKey,
+                leaderResponse);
+
+        if (inFlightResponse != null) {
+            return this.awaitResponse(request, inFlightResponse).copy();
+        }
+
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            CoalescedResponse coalescedResponse = new CoalescedResponse(response.getStatusCode(),
+                    response.getStatusText(), HttpHeaders.readOnlyHttpHeaders(response.getHeaders()),
+                    StreamUtils.copyToByteArray(response.getBody()));
+            leaderResponse.complete(coalescedResponse);
+            return coalescedResponse.copy();
+        } catch (IOException | RuntimeException e) {
+            leaderResponse.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRequests.remove(requestKey, leaderResponse);
+        }
+    }
+
+    private RequestKey requestKey(HttpRequest request) {
+        List<List<String>> headerValues = new ArrayList<>(properties.getVaryHeaders().size());
+        for (String headerName : properties.getVaryHeaders()) {
+            headerValues.add(request.getHeaders().get(headerName));
+        }
+        return new RequestKey(request.getMethod(), request.getURI(), headerValues);
+    }
+
+    private CoalescedResponse awaitResponse(HttpRequest request, CompletableFuture<CoalescedResponse> response)
+            throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.getMethod() + " "
+                    + request.getURI());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to execute " + request.getMethod() + " " + request.getURI(), e.getCause());
+        }
+    }
+
+    /**
+     * Identity of a request for coalescing purposes.
+     */
+    private record RequestKey(HttpMethod method, URI uri, List<List<String>> headerValues) {
+    }
+
+    /**
+     * Response received by the request sent to the service, shared by all the
+     * coalesced requests.
+     */
+    private record CoalescedResponse(HttpStatusCode statusCode, String statusText, HttpHeaders headers,
+            byte[] body) {
+
+        ClientHttpResponse copy() {
+            return new ClientHttpResponse() {
+                @Override
+                public @NonNull HttpStatusCode getStatusCode() {
+                    return statusCode;
+                }
+
+                @Override
+                public @NonNull String getStatusText() {
+                    return statusText;
+                }
+
+                @Override
+                public @NonNull HttpHeaders getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                public @NonNull InputStream getBody() {
+                    return new ByteArrayInputStream(body);
+                }
+
+                @Override
+                public void close() {
+                    // The response body is fully buffered, so there are no resources to release
+                }
+            };
+        }
+    }
+
+    /**
+     * A data class that holds request coalescing properties. Coalescing is
+     * disabled by default. Requests are only coalesced when the values of the
+     * varying headers match.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private List<String> varyHeaders = new ArrayList<>(List.of(HttpHeaders.ACCEPT, HttpHeaders.AUTHORIZATION));
+    }
+}
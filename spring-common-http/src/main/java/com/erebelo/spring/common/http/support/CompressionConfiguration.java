@@ -0,0 +1,119 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+import lombok.Data;
+import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.entity.DeflateInputStreamFactory;
+import org.apache.hc.client5.http.entity.GZIPInputStreamFactory;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * Utility class for configuring HTTP compression. It provides methods to set up
+ * the content encodings accepted in responses, which are decompressed while
+ * being read, and an interceptor compressing large request bodies with gzip.
+ */
+@UtilityClass
+public class CompressionConfiguration {
+
+    private static final String GZIP = "gzip";
+
+    /**
+     * Creates the registry of response content decoders, keyed by content
+     * encoding. The HttpClient advertises these encodings in the Accept-Encoding
+     * header and decompresses matching responses as they are read.
+     *
+     * @param properties
+     *            the compression settings holding the accepted encodings
+     * @return a map of content decoders in order of preference
+     * @throws IllegalStateException
+     *             if an accepted encoding is not supported
+     */
+    public static LinkedHashMap<String, InputStreamFactory> contentDecoders(Properties properties) {
+        LinkedHashMap<String, InputStreamFactory> contentDecoders = new LinkedHashMap<>();
+        for (String encoding : properties.getAcceptEncodings()) {
+            String contentEncoding = encoding.trim().toLowerCase(Locale.ROOT);
+            switch (contentEncoding) {
+                case GZIP, "x-gzip" -> contentDecoders.put(contentEncoding, GZIPInputStreamFactory.getInstance());
+                case "deflate" -> contentDecoders.put(contentEncoding, DeflateInputStreamFactory.getInstance());
+                default -> throw new IllegalStateException("Unsupported content encoding: " + encoding);
+            }
+        }
+        return contentDecoders;
+    }
+
+    /**
+     * Creates an exec interceptor that advertises the accepted encodings in the
+     * Accept-Encoding header, unless the request already declares it. It must run
+     * before the HttpClient compression element, which otherwise advertises its
+     * own default encodings regardless of the registered content decoders: the
+     * encodings handed over by the HttpClientBuilder are ignored by
+     * ContentCompressionExec as of HttpClient 5.4.
+     *
+     * @param properties
+     *            the compression settings holding the accepted encodings
+     * @return an ExecChainHandler setting the Accept-Encoding header
+     */
+    public static ExecChainHandler acceptEncodingInterceptor(Properties properties) {
+        String acceptEncoding = MessageSupport
+                .headerOfTokens(HttpHeaders.ACCEPT_ENCODING, List.copyOf(contentDecoders(properties).keySet()))
+                .getValue();
+        return (request, scope, chain) -> {
+            if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+                request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+            }
+            return chain.proceed(request, scope);
+        };
+    }
+
+    /**
+     * Creates an interceptor that compresses request bodies with gzip when they
+     * reach the configured threshold, unless the request already declares a
+     * content encoding. The Content-Length header is updated to the compressed
+     * size.
+     *
+     * @param properties
+     *            the compression settings holding the request threshold
+     * @return a ClientHttpRequestInterceptor compressing large request bodies
+     */
+    public static ClientHttpRequestInterceptor requestCompressionInterceptor(Properties properties) {
+        return (request, body, execution) -> {
+            HttpHeaders headers = request.getHeaders();
+            if (body.length < properties.getRequestThreshold() || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return execution.execute(request, body);
+            }
+
+            ByteArrayOutputStream compressedBody = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedBody)) {
+                gzipOutputStream.write(body);
+            }
+
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.setContentLength(compressedBody.size());
+            return execution.execute(request, compressedBody.toByteArray());
+        };
+    }
+
+    /**
+     * A data class that holds compression properties. Responses are decompressed
+     * by default for the gzip, x-gzip and deflate encodings, while request
+     * compression is disabled by default. The request threshold is expressed in
+     * bytes.
+     */
+    @Data
+    public static class Properties {
+        private boolean responseDecompression = true;
+        private List<String> acceptEncodings = new ArrayList<>(List.of(GZIP, "x-gzip", "deflate"));
+        private boolean requestCompression;
+        private long requestThreshold = 2048L;
+    }
+}
@@ -0,0 +1,127 @@
+package com.erebelo.spring.common.http.support;
+
+import com.erebelo.spring.common.http.ConcurrencyLimitExceededException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Data;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+
+/**
+ * ClientHttpRequestInterceptor that limits the number of in-flight requests to
+ * a service (bulkhead), so that a slow service cannot hold every request
+ * thread of the application. Requests above the limit are rejected right away
+ * with a {@link ConcurrencyLimitExceededException}, without being sent.
+ * <p>
+ * In FIXED mode the limit is constant. In AIMD mode the limit adapts to the
+ * observed round-trip time: it grows by one after each successful request sent
+ * while at least half of the limit was in use, and it is multiplied by the
+ * backoff ratio after each request that failed, was throttled by the service or
+ * took longer than the latency threshold.
+ * </p>
+ */
+public class ConcurrencyLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final String serviceName;
+    private final Properties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    public ConcurrencyLimitInterceptor(String serviceName, Properties properties) {
+        this.serviceName = serviceName;
+        this.properties = properties;
+        this.limit = properties.getLimit();
+    }
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+            @NonNull ClientHttpRequestExecution execution) throws IOException {
+        int currentInFlight = this.acquire();
+        long startTime = System.nanoTime();
+        boolean dropped = true;
+
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            dropped = this.isThrottled(response);
+            return response;
+        } finally {
+            inFlight.decrementAndGet();
+            if (properties.getMode() == Mode.AIMD) {
+                this.adjustLimit(currentInFlight, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                        dropped);
+            }
+        }
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return the maximum number of in-flight requests
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Takes a slot for a new request.
+     *
+     * @return the number of in-flight requests including the new one
+     * @throws ConcurrencyLimitExceededException
+     *             if the limit is reached
+     */
+    private int acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                throw new ConcurrencyLimitExceededException(String.format(
+                        "Concurrency limit of %d in-flight requests reached for service '%s'", limit, serviceName));
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private boolean isThrottled(ClientHttpResponse response) throws IOException {
+        int statusCode = response.getStatusCode().value();
+        return statusCode == HttpStatus.TOO_MANY_REQUESTS.value()
+                || statusCode == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    private synchronized void adjustLimit(int requestInFlight, long latency, boolean dropped) {
+        if (dropped || latency > properties.getLatencyThreshold()) {
+            limit = Math.max(properties.getMinLimit(), (int) (limit * properties.getBackoffRatio()));
+        } else if (requestInFlight * 2 >= limit) {
+            limit = Math.min(properties.getMaxLimit(), limit + 1);
+        }
+    }
+
+    /**
+     * Concurrency limiting modes.
+     */
+    public enum Mode {
+        FIXED, AIMD
+    }
+
+    /**
+     * A data class that holds concurrency limit properties. Limiting is disabled
+     * by default. The limit is the fixed limit in FIXED mode and the initial limit
+     * in AIMD mode, where it is kept between the minimum and maximum limits. The
+     * latency threshold is expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private Mode mode = Mode.FIXED;
+        private int limit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private long latencyThreshold = 1000L;
+        private double backoffRatio = 0.9;
+    }
+}
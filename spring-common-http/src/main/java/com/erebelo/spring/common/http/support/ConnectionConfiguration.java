@@ -1,56 +1,216 @@
 package com.erebelo.spring.common.http.support;
 
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import javax.net.ssl.SSLContext;
+import com.erebelo.spring.common.http.HttpClientProperties;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.Data;
 import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
 import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.IdleConnectionEvictor;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
 import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
-import org.apache.hc.core5.http.ssl.TLS;
-import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.TimeValue;
 
 /**
  * Utility class for configuring HTTP connection settings. It provides methods
- * to set up connection management and TLS socket strategy for secure
- * connections.
+ * to set up connection management and TLS strategies for secure connections,
+ * for both classic (blocking) and async (non-blocking) clients.
  */
 @UtilityClass
 public class ConnectionConfiguration {
 
     /**
-     * Creates a pooling HTTP client connection manager with default connection
-     * configurations. It sets up a TLS socket strategy using the configured SSL
-     * context for secure communication.
+     * Creates a pooling HTTP client connection manager sized according to the
+     * provided pool properties. Pooled connections are validated after the
+     * configured period of inactivity and are never reused beyond their time to
+     * live. It uses the given TLS strategy for secure communication and the given
+     * DNS resolver to resolve the target hosts, both shared by all the pools.
      *
+     * @param properties
+     *            the pool settings to apply to the connection manager
+     * @param tlsStrategy
+     *            the shared TLS strategy of the pooled connections
+     * @param dnsResolver
+     *            the shared DNS resolver of the pooled connections
      * @return a PoolingHttpClientConnectionManager for managing HTTP connections
      */
-    public static PoolingHttpClientConnectionManager connectionManager() {
+    public static PoolingHttpClientConnectionManager connectionManager(Properties properties,
+            TlsStrategy tlsStrategy, DnsResolver dnsResolver) {
         return PoolingHttpClientConnectionManagerBuilder.create()
-                .setDefaultConnectionConfig(ConnectionConfig.custom().build())
-                .setTlsSocketStrategy(createTlsSocketStrategy()).build();
+                .setDefaultConnectionConfig(connectionConfig(properties)).setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setTlsSocketStrategy((TlsSocketStrategy) tlsStrategy).setDnsResolver(dnsResolver).build();
     }
 
     /**
-     * Configures the SSL context for secure connections. This method allows all
-     * certificates by loading trust material that accepts any X509 certificates.
+     * Creates a pooling async client connection manager with the same pool sizing,
+     * validation and time to live settings as the classic connection manager.
      *
-     * @return an SSLContext configured for secure connections
-     * @throws RuntimeException
-     *             if an error occurs during SSL context configuration
-     */
-    private static TlsSocketStrategy createTlsSocketStrategy() {
-        try {
-            // Create an SSLContext that allows any certificate
-            SSLContext sslContext = SSLContexts.custom().loadTrustMaterial((x509Certificates, s) -> true).build();
-
-            return (TlsSocketStrategy) ClientTlsStrategyBuilder.create().setSslContext(sslContext)
-                    .setTlsVersions(TLS.V_1_2, TLS.V_1_3).build();
-        } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
-            throw new IllegalStateException("Failed to configure SSLContext", e);
+     * @param properties
+     *            the pool settings to apply to the connection manager
+     * @param tlsConfig
+     *            the TLS settings, including the HTTP version policy, of the
+     *            pooled connections
+     * @param tlsStrategy
+     *            the shared TLS strategy of the pooled connections
+     * @param dnsResolver
+     *            the shared DNS resolver of the pooled connections
+     * @return a PoolingAsyncClientConnectionManager for managing non-blocking HTTP
+     *         connections
+     */
+    public static PoolingAsyncClientConnectionManager asyncConnectionManager(Properties properties,
+            TlsConfig tlsConfig, TlsStrategy tlsStrategy, DnsResolver dnsResolver) {
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDefaultConnectionConfig(connectionConfig(properties)).setDefaultTlsConfig(tlsConfig)
+                .setMaxConnTotal(properties.getMaxTotal()).setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setTlsStrategy(tlsStrategy).setDnsResolver(dnsResolver).build();
+    }
+
+    /**
+     * Creates the DNS resolver for the given DNS properties. When caching is
+     * enabled, a new CachingDnsResolver is returned, which the caller shares by
+     * all its pools and shuts down once they are closed. Otherwise the JVM
+     * resolver is used.
+     *
+     * @param properties
+     *            the DNS caching settings
+     * @return a DnsResolver instance
+     */
+    public static DnsResolver dnsResolver(CachingDnsResolver.Properties properties) {
+        if (!properties.isEnabled()) {
+            return SystemDefaultDnsResolver.INSTANCE;
+        }
+
+        return new CachingDnsResolver(properties);
+    }
+
+    /**
+     * Resolves the pool properties that apply to the given service. Services
+     * referring to a shared pool use the properties declared for that pool, or the
+     * default pool properties when the shared pool is not explicitly configured.
+     *
+     * @param httpClientProperties
+     *            the HTTP client properties holding the shared pools
+     * @param serviceProperties
+     *            the service-specific configuration
+     * @return the pool properties to apply
+     */
+    public static Properties poolProperties(HttpClientProperties httpClientProperties,
+            HttpClientProperties.ServiceProperties serviceProperties) {
+        if (serviceProperties.getSharedPool() == null) {
+            return serviceProperties.getPool();
+        }
+
+        return Objects.requireNonNullElseGet(
+                httpClientProperties.getSharedPools().get(serviceProperties.getSharedPool()), Properties::new);
+    }
+
+    /**
+     * Applies the per-host connection limits to the given connection pool.
+     * HttpClient pools connections per route rather than per host, so each host
+     * is registered for both HTTP and HTTPS direct routes and, when a proxy is
+     * supplied, for the routes through that proxy as well.
+     *
+     * @param connPoolControl
+     *            the connection pool to configure
+     * @param properties
+     *            the pool settings holding the per-host overrides
+     * @param proxy
+     *            the proxy used by the client, or null for direct connections
+     */
+    public static void configRoutes(ConnPoolControl<HttpRoute> connPoolControl, Properties properties,
+            HttpHost proxy) {
+        properties.getMaxPerHost().forEach((host, max) -> {
+            URI uri = URI.create("//" + host);
+
+            for (URIScheme scheme : URIScheme.values()) {
+                HttpHost target = RoutingSupport.normalize(new HttpHost(scheme.getId(), uri.getHost(), uri.getPort()),
+                        DefaultSchemePortResolver.INSTANCE);
+                boolean secure = scheme == URIScheme.HTTPS;
+
+                connPoolControl.setMaxPerRoute(new HttpRoute(target, null, secure), max);
+                if (proxy != null) {
+                    connPoolControl.setMaxPerRoute(new HttpRoute(target, null, proxy, secure), max);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates and starts a background evictor that closes expired connections and,
+     * if configured, connections idle for longer than the given period. This way
+     * connections dropped by the server or by load balancers are removed from the
+     * pool before they are leased.
+     *
+     * @param connPoolControl
+     *            the connection pool to evict connections from
+     * @param properties
+     *            the pool settings holding the eviction configuration
+     * @return the running IdleConnectionEvictor, or null if neither a time to live
+     *         nor an idle eviction period is configured
+     */
+    public static IdleConnectionEvictor idleConnectionEvictor(ConnPoolControl<?> connPoolControl,
+            Properties properties) {
+        if (properties.getTimeToLive() == null && properties.getEvictIdleAfter() == null) {
+            return null;
         }
+
+        TimeValue maxIdleTime = properties.getEvictIdleAfter() != null
+                ? TimeValue.ofMilliseconds(properties.getEvictIdleAfter())
+                : null;
+        TimeValue sleepTime = maxIdleTime != null ? maxIdleTime : TimeValue.ofMilliseconds(properties.getTimeToLive());
+
+        IdleConnectionEvictor connectionEvictor = new IdleConnectionEvictor(connPoolControl, sleepTime, maxIdleTime);
+        connectionEvictor.start();
+        return connectionEvictor;
+    }
+
+    /**
+     * Creates the connection settings shared by the classic and async clients.
+     *
+     * @param properties
+     *            the pool settings holding the validation and time to live values
+     * @return a ConnectionConfig instance
+     */
+    public static ConnectionConfig connectionConfig(Properties properties) {
+        return ConnectionConfig.custom()
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(properties.getValidateAfterInactivity()))
+                .setTimeToLive(properties.getTimeToLive() != null
+                        ? TimeValue.ofMilliseconds(properties.getTimeToLive())
+                        : null)
+                .build();
+    }
+
+    /**
+     * A data class that holds connection pool properties. The default values
+     * match the HttpClient defaults and can be raised to fit the expected
+     * traffic. Per-host overrides are keyed by the target host name, optionally
+     * followed by the port, and replace the per-route limit for that host. All
+     * durations are expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private int maxTotal = 25;
+        private int maxPerRoute = 5;
+        private Map<String, Integer> maxPerHost = new HashMap<>();
+        private Long leaseTimeout;
+        private Long timeToLive;
+        private long validateAfterInactivity = 2000L;
+        private Long evictIdleAfter;
     }
 }
@@ -0,0 +1,224 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Pre-establishes pooled connections to a service, so that the first requests
+ * after startup do not pay the DNS resolution and the TCP and TLS handshakes.
+ * <p>
+ * For classic clients the connections are opened directly in the pool: the
+ * configured number of connections is leased in parallel, connected to the
+ * route of the warm-up URL and held until all of them are connected, so that
+ * each one is distinct, before being released to the pool. Async clients have
+ * no such access to their pool, so warm-up requests are sent instead, which is
+ * enough for HTTP/2 services multiplexing requests over a single connection.
+ * Warm-up failures are logged and never prevent the application from starting.
+ * </p>
+ */
+@Log4j2
+public class ConnectionWarmer {
+
+    private final String serviceName;
+    private final Properties properties;
+    private final HttpClientConnectionManager connectionManager;
+    private final HttpHost proxy;
+    private final ClientHttpRequestFactory requestFactory;
+
+    /**
+     * Creates a connection warmer opening connections in the pool of a classic
+     * client.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param properties
+     *            the warm-up settings
+     * @param connectionManager
+     *            the connection manager of the service
+     * @param proxy
+     *            the proxy used by the service, or null for direct connections
+     */
+    public ConnectionWarmer(String serviceName, Properties properties, HttpClientConnectionManager connectionManager,
+            HttpHost proxy) {
+        this.serviceName = serviceName;
+        this.properties = properties;
+        this.connectionManager = connectionManager;
+        this.proxy = proxy;
+        this.requestFactory = null;
+    }
+
+    /**
+     * Creates a connection warmer sending warm-up requests through the request
+     * factory of an async client.
+     *
+     * @param serviceName
+     *            the service alias
+     * @param properties
+     *            the warm-up settings
+     * @param requestFactory
+     *            the request factory of the service
+     */
+    public ConnectionWarmer(String serviceName, Properties properties, ClientHttpRequestFactory requestFactory) {
+        this.serviceName = serviceName;
+        this.properties = properties;
+        this.connectionManager = null;
+        this.proxy = null;
+        this.requestFactory = requestFactory;
+    }
+
+    /**
+     * Starts warming up the service connections on the given executor.
+     *
+     * @param executor
+     *            the executor opening the connections
+     * @return a future completed once the connections are established, or once
+     *         the warm-up timeout elapsed; it never completes exceptionally
+     * @throws IllegalStateException
+     *             if no warm-up URL is configured
+     */
+    public CompletableFuture<Void> warmUp(Executor executor) {
+        if (!StringUtils.hasText(properties.getUrl())) {
+            throw new IllegalStateException(
+                    String.format("Connection warm-up URL is not configured for service '%s'", serviceName));
+        }
+
+        URI uri = URI.create(properties.getUrl());
+        HttpRoute route = null;
+        if (connectionManager != null) {
+            HttpHost target = RoutingSupport.normalize(new HttpHost(uri.getScheme(), uri.getHost(), uri.getPort()),
+                    DefaultSchemePortResolver.INSTANCE);
+            boolean secure = URIScheme.HTTPS.same(target.getSchemeName());
+            if (proxy != null && secure) {
+                log.warn("Connection warm-up for service '{}' is not supported for tunnelled proxy routes",
+                        serviceName);
+                return CompletableFuture.completedFuture(null);
+            }
+            route = proxy != null ? new HttpRoute(target, null, proxy, false) : new HttpRoute(target, null, secure);
+        }
+
+        HttpRoute warmupRoute = route;
+        CountDownLatch establishedLatch = new CountDownLatch(properties.getConnections());
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>(properties.getConnections());
+        for (int i = 0; i < properties.getConnections(); i++) {
+            attempts.add(CompletableFuture.supplyAsync(() -> warmupRoute != null
+                    ? this.openConnection(warmupRoute, establishedLatch)
+                    : this.sendRequest(uri, establishedLatch), executor));
+        }
+
+        return CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new))
+                .orTimeout(properties.getTimeout(), TimeUnit.MILLISECONDS).handle((result, throwable) -> {
+                    long established = attempts.stream().filter(attempt -> Boolean.TRUE.equals(attempt.getNow(false)))
+                            .count();
+                    if (throwable != null) {
+                        log.warn("Connection warm-up for service '{}' timed out after {} ms with {} of {} connections",
+                                serviceName, properties.getTimeout(), established, properties.getConnections());
+                    } else {
+                        log.info("Connection warm-up for service '{}' established {} of {} connections", serviceName,
+                                established, properties.getConnections());
+                    }
+                    return null;
+                });
+    }
+
+    private boolean openConnection(HttpRoute route, CountDownLatch establishedLatch) {
+        Timeout timeout = Timeout.ofMilliseconds(properties.getTimeout());
+        ConnectionEndpoint endpoint = null;
+        boolean connected = false;
+        try {
+            endpoint = connectionManager.lease("warmup", route, timeout, null).get(timeout);
+            if (!endpoint.isConnected()) {
+                connectionManager.connect(endpoint, timeout, HttpClientContext.create());
+            }
+            connected = true;
+        } catch (IOException | ExecutionException | TimeoutException | RuntimeException e) {
+            log.warn("Connection warm-up to '{}' failed for service '{}'", route.getTargetHost(), serviceName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            establishedLatch.countDown();
+        }
+
+        if (endpoint == null) {
+            return false;
+        }
+
+        try {
+            establishedLatch.await(properties.getTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Connected endpoints are released as reusable, the others are discarded
+            connectionManager.release(endpoint, null,
+                    connected ? TimeValue.NEG_ONE_MILLISECOND : TimeValue.ZERO_MILLISECONDS);
+        }
+        return connected;
+    }
+
+    private boolean sendRequest(URI uri, CountDownLatch establishedLatch) {
+        ClientHttpResponse response = null;
+        try {
+            response = requestFactory.createRequest(uri, properties.getMethod()).execute();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Connection warm-up request to '{}' failed for service '{}'", uri, serviceName, e);
+        } finally {
+            establishedLatch.countDown();
+        }
+
+        if (response == null) {
+            return false;
+        }
+
+        try (ClientHttpResponse heldResponse = response) {
+            establishedLatch.await(properties.getTimeout(), TimeUnit.MILLISECONDS);
+            StreamUtils.drain(heldResponse.getBody());
+            return true;
+        } catch (IOException e) {
+            log.warn("Connection warm-up response from '{}' failed for service '{}'", uri, serviceName, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A data class that holds connection warm-up properties. Warm-up is disabled
+     * by default. The URL must be absolute, typically a health endpoint of the
+     * service; classic clients only use its scheme, host and port, while async
+     * clients send requests with the given method to it. The timeout is
+     * expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private String url;
+        private HttpMethod method = HttpMethod.HEAD;
+        private int connections = 2;
+        private long timeout = 5000L;
+    }
+}
@@ -0,0 +1,95 @@
+package com.erebelo.spring.common.http.support;
+
+import com.erebelo.spring.common.http.DeadlineExceededException;
+import com.erebelo.spring.common.utils.http.RequestDeadline;
+import java.io.InterruptedIOException;
+import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Utility class for enforcing request deadlines on outgoing requests. The
+ * deadline of the request being handled is sent in the RequestDeadline trace
+ * header; requests are not sent once it is reached, and the timeouts of those
+ * sent are shortened to the time left, so that no thread waits for a response
+ * that will not be used.
+ */
+@UtilityClass
+public class DeadlineConfiguration {
+
+    /**
+     * Checks that the deadline held by the given request headers, if any, is not
+     * reached yet.
+     *
+     * @param headers
+     *            the headers of the outgoing request
+     * @throws DeadlineExceededException
+     *             if the deadline is reached
+     */
+    public static void checkDeadline(HttpHeaders headers) {
+        Long deadline = RequestDeadline.parse(headers.getFirst(RequestDeadline.REQUEST_DEADLINE_HEADER));
+        if (deadline != null && deadline <= System.currentTimeMillis()) {
+            throw new DeadlineExceededException(
+                    String.format("Request deadline exceeded by %d ms", System.currentTimeMillis() - deadline));
+        }
+    }
+
+    /**
+     * Creates an exec interceptor shortening the response and connection request
+     * timeouts of each attempt to the time left before the request deadline. It
+     * must run after the retry element, so that each retry gets the time left
+     * when it is made.
+     *
+     * @return an ExecChainHandler applying the request deadline
+     */
+    public static ExecChainHandler execInterceptor() {
+        return (request, scope, chain) -> {
+            applyDeadline(request, scope.clientContext);
+            return chain.proceed(request, scope);
+        };
+    }
+
+    /**
+     * Creates the async counterpart of {@link #execInterceptor()}.
+     *
+     * @return an AsyncExecChainHandler applying the request deadline
+     */
+    public static AsyncExecChainHandler asyncExecInterceptor() {
+        return (request, entityProducer, scope, chain, asyncExecCallback) -> {
+            applyDeadline(request, scope.clientContext);
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+        };
+    }
+
+    private static void applyDeadline(HttpRequest request, HttpClientContext context) throws InterruptedIOException {
+        Header header = request.getFirstHeader(RequestDeadline.REQUEST_DEADLINE_HEADER);
+        Long deadline = header != null ? RequestDeadline.parse(header.getValue()) : null;
+        if (deadline == null) {
+            return;
+        }
+
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            // Not retried by the retry strategies, as any interrupted I/O
+            throw new InterruptedIOException("Request deadline exceeded");
+        }
+
+        RequestConfig requestConfig = context.getRequestConfigOrDefault();
+        context.setRequestConfig(RequestConfig.copy(requestConfig)
+                .setResponseTimeout(shorten(requestConfig.getResponseTimeout(), remaining))
+                .setConnectionRequestTimeout(shorten(requestConfig.getConnectionRequestTimeout(), remaining))
+                .build());
+    }
+
+    private static Timeout shorten(Timeout timeout, long remaining) {
+        return timeout == null || timeout.isDisabled() || timeout.toMilliseconds() > remaining
+                ? Timeout.ofMilliseconds(remaining)
+                : timeout;
+    }
+}
@@ -0,0 +1,252 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Data;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+
+/**
+ * ClientHttpRequestInterceptor that hedges safe requests (GET, HEAD and
+ * OPTIONS) to reduce tail latency. The request is sent on the calling thread
+ * and, if no response arrives within the hedging delay, an identical request
+ * is sent as well from the hedging executor. The first response wins and the
+ * other attempt is aborted, closing its connection or resetting its HTTP/2
+ * stream, or its response is closed if it already arrived. When the service is
+ * load balanced, the hedged attempt is sent to another endpoint.
+ * <p>
+ * The hedging delay is either fixed or derived from a percentile of the
+ * latencies observed by the interceptor. The number of hedged requests is
+ * capped by a budget that grows by the configured ratio on every request, so
+ * that hedging cannot multiply the load sent to a slow service, and by the
+ * threads of the hedging executor. A request is not hedged when no thread is
+ * available.
+ * </p>
+ * <p>
+ * It must be the last interceptor of the RestTemplate, since each attempt
+ * resumes the execution chain from this interceptor.
+ * </p>
+ */
+public class HedgingInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> HEDGED_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD,
+            HttpMethod.OPTIONS);
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final Properties properties;
+    private final Executor hedgingExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final RequestBudget budget;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private final AtomicLong latencyCount = new AtomicLong();
+    private volatile long percentileDelay;
+
+    /**
+     * @param properties
+     *            the hedging properties
+     * @param hedgingExecutor
+     *            the bounded executor sending the hedged attempts, rejecting them
+     *            when all its threads are busy
+     * @param scheduler
+     *            the scheduler triggering the hedged attempts after the hedging
+     *            delay
+     */
+    public HedgingInterceptor(Properties properties, Executor hedgingExecutor, ScheduledExecutorService scheduler) {
+        this.properties = properties;
+        this.hedgingExecutor = hedgingExecutor;
+        this.scheduler = scheduler;
+        this.budget = new RequestBudget(properties.getMaxRatio(), properties.getMaxBudget());
+        this.percentileDelay = properties.getDelay();
+    }
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+            @NonNull ClientHttpRequestExecution execution) throws IOException {
+        if (!HEDGED_METHODS.contains(request.getMethod())) {
+            return execution.execute(request, body);
+        }
+
+        budget.deposit();
+        HedgedExchange exchange = new HedgedExchange(request, body, execution);
+        ScheduledFuture<?> hedgeTrigger = scheduler.schedule(exchange::hedge, this.hedgingDelay(),
+                TimeUnit.MILLISECONDS);
+
+        try {
+            exchange.attempt(exchange.primaryAttempt, request);
+            hedgeTrigger.cancel(false);
+            return exchange.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.getMethod() + " "
+                    + request.getURI());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to execute " + request.getMethod() + " " + request.getURI(), e.getCause());
+        } finally {
+            hedgeTrigger.cancel(false);
+            // Aborts the hedged attempt if the caller gave up before any attempt completed
+            if (exchange.result.cancel(false)) {
+                exchange.hedgedAttempt.cancel();
+            }
+        }
+    }
+
+    private long hedgingDelay() {
+        return properties.getDelayPercentile() != null ? percentileDelay : properties.getDelay();
+    }
+
+    /**
+     * Records the latency of a completed attempt, measured from the start of the
+     * request so that hedged attempts do not lower the percentile delay, and, once
+     * every full round of samples, recomputes the percentile delay from the most
+     * recent samples.
+     */
+    private void recordLatency(long latencyNanos) {
+        if (properties.getDelayPercentile() == null) {
+            return;
+        }
+
+        long count = latencyCount.incrementAndGet();
+        latencies[(int) ((count - 1) % LATENCY_SAMPLES)] = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+
+        if (count % LATENCY_SAMPLES == 0) {
+            long[] samples = latencies.clone();
+            Arrays.sort(samples);
+            int index = (int) Math.ceil(properties.getDelayPercentile() * LATENCY_SAMPLES) - 1;
+            percentileDelay = Math.max(samples[Math.max(index, 0)], 1L);
+        }
+    }
+
+    /**
+     * Attempts of a hedged request. The first successful attempt completes the
+     * result and aborts the other one, while responses arriving later are closed
+     * to release their connections. A failure only completes the result when no
+     * other attempt is still pending.
+     */
+    private final class HedgedExchange {
+
+        private final HttpRequest request;
+        private final byte[] body;
+        private final ClientHttpRequestExecution execution;
+        private final CompletableFuture<ClientHttpResponse> result = new CompletableFuture<>();
+        private final AtomicInteger pendingAttempts = new AtomicInteger(1);
+        private final RequestAttempt primaryAttempt = new RequestAttempt();
+        private final RequestAttempt hedgedAttempt = new RequestAttempt();
+        private final long startTime = System.nanoTime();
+        private volatile Exception lastFailure;
+
+        private HedgedExchange(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) {
+            this.request = request;
+            this.body = body;
+            this.execution = execution;
+        }
+
+        /**
+         * Sends the hedged attempt, unless the request already completed, the
+         * budget is exhausted or no thread of the hedging executor is available.
+         * The budget token is given back when the hedged attempt is not sent after
+         * all. The hedged attempt of a load balanced request is sent to another
+         * endpoint.
+         */
+        private void hedge() {
+            if (result.isDone() || !budget.tryWithdraw()) {
+                return;
+            }
+            if (pendingAttempts.getAndUpdate(pending -> pending > 0 ? pending + 1 : pending) == 0) {
+                budget.refund();
+                return;
+            }
+
+            HttpRequest hedgedRequest = request instanceof LoadBalancingInterceptor.BalancedRequest balancedRequest
+                    ? balancedRequest.toAnotherEndpoint()
+                    : request;
+            try {
+                hedgingExecutor.execute(() -> {
+                    if (!result.isDone()) {
+                        this.attempt(hedgedAttempt, hedgedRequest);
+                    } else {
+                        budget.refund();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                budget.refund();
+                this.attemptFailed(null);
+            }
+        }
+
+        private void attempt(RequestAttempt attempt, HttpRequest attemptRequest) {
+            try {
+                ClientHttpResponse response = attempt.execute(() -> this.send(attempt, attemptRequest));
+                HedgingInterceptor.this.recordLatency(System.nanoTime() - startTime);
+                if (result.complete(response)) {
+                    (attempt == primaryAttempt ? hedgedAttempt : primaryAttempt).cancel();
+                } else {
+                    response.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                this.attemptFailed(e);
+            }
+        }
+
+        private ClientHttpResponse send(RequestAttempt attempt, HttpRequest attemptRequest) throws IOException {
+            if (attempt == hedgedAttempt
+                    && attemptRequest instanceof LoadBalancingInterceptor.BalancedRequest balancedRequest) {
+                return balancedRequest.execute(body, execution);
+            }
+            return execution.execute(attemptRequest, body);
+        }
+
+        /**
+         * Completes the result with the last failure once no attempt is pending. A
+         * hedged attempt rejected by the executor is not pending anymore, but does
+         * not replace the failure of the primary attempt.
+         */
+        private void attemptFailed(Exception failure) {
+            if (failure != null) {
+                lastFailure = failure;
+            }
+            if (pendingAttempts.decrementAndGet() == 0) {
+                result.completeExceptionally(lastFailure);
+            }
+        }
+    }
+
+    /**
+     * A data class that holds hedging properties. Hedging is disabled by default.
+     * The delay is expressed in milliseconds and is used until enough latencies
+     * are observed when a delay percentile is configured. The maximum ratio bounds
+     * the share of requests that can be hedged, the maximum budget the hedges
+     * allowed in a burst, which is also the initial budget, and the maximum
+     * concurrency the hedged attempts in flight, each of them taking a thread of
+     * the hedging executor of the service.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private long delay = 50L;
+        private Double delayPercentile;
+        private double maxRatio = 0.1;
+        private int maxBudget = 10;
+        private int maxConcurrency = 10;
+    }
+}
@@ -0,0 +1,289 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+
+/**
+ * ClientHttpRequestFactory implementation that executes RestTemplate requests
+ * on an async HttpClient. The calling thread still waits for the response, but
+ * the request is sent over the async client connections, which allows
+ * RestTemplate beans to use HTTP/2 and multiplex concurrent requests over a
+ * single connection.
+ * <p>
+ * Request bodies are buffered in memory. Response bodies are streamed: the
+ * response is returned once its head is received, and its body is read from a
+ * bounded buffer that the async client only refills as it is consumed (flow
+ * control), so that large responses are not held in memory. Closing a response
+ * before its body was fully read aborts the exchange.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class HttpAsyncClientRequestFactory implements ClientHttpRequestFactory {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+
+    @Override
+    public @NonNull ClientHttpRequest createRequest(@NonNull URI uri, @NonNull HttpMethod httpMethod) {
+        return new HttpAsyncClientRequest(httpAsyncClient, uri, httpMethod);
+    }
+
+    /**
+     * ClientHttpRequest that buffers the request body and sends the request
+     * through the async HttpClient once executed.
+     */
+    @RequiredArgsConstructor
+    private static class HttpAsyncClientRequest extends AbstractClientHttpRequest {
+
+        private final CloseableHttpAsyncClient httpAsyncClient;
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream bufferedOutput = new ByteArrayOutputStream(1024);
+
+        @Override
+        public @NonNull URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public @NonNull HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        protected @NonNull OutputStream getBodyInternal(@NonNull HttpHeaders headers) {
+            return bufferedOutput;
+        }
+
+        @Override
+        protected @NonNull ClientHttpResponse executeInternal(@NonNull HttpHeaders headers) throws IOException {
+            SimpleRequestBuilder requestBuilder = SimpleRequestBuilder.create(method.name()).setUri(uri);
+            headers.forEach((name, values) -> {
+                // Content headers are derived from the body by the async client
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                        && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+                        && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                    values.forEach(value -> requestBuilder.addHeader(name, value));
+                }
+            });
+
+            if (bufferedOutput.size() > 0) {
+                String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+                requestBuilder.setBody(bufferedOutput.toByteArray(),
+                        contentType != null ? ContentType.parseLenient(contentType) : null);
+            }
+
+            StreamingResponseConsumer responseConsumer = new StreamingResponseConsumer();
+            Future<ClientHttpResponse> responseFuture = httpAsyncClient
+                    .execute(SimpleRequestProducer.create(requestBuilder.build()), responseConsumer, null);
+            RequestAttempt.register(() -> responseFuture.cancel(true));
+
+            try {
+                return responseFuture.get();
+            } catch (InterruptedException e) {
+                responseFuture.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + method + " " + uri);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IOException("Failed to execute " + method + " " + uri, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * AsyncResponseConsumer handing the response over as soon as its head is
+     * received. Its body is then buffered up to the capacity granted to the async
+     * client, which is only increased again once the buffered data is read.
+     */
+    private static class StreamingResponseConsumer implements AsyncResponseConsumer<ClientHttpResponse> {
+
+        private final SharedInputBuffer buffer = new SharedInputBuffer(BUFFER_SIZE);
+        private volatile CapacityChannel capacityChannel;
+        private volatile Exception failure;
+        private volatile boolean closed;
+        private boolean responseReceived;
+
+        /**
+         * Hands the response over to the caller. A second response, sent when the
+         * request is retried after its body started streaming, fails the exchange,
+         * so that the caller cannot read a body mixing both responses.
+         */
+        @Override
+        public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                FutureCallback<ClientHttpResponse> resultCallback) throws IOException {
+            if (responseReceived) {
+                throw new InterruptedIOException("Response body was interrupted and cannot be replayed");
+            }
+            responseReceived = true;
+            if (entityDetails == null) {
+                buffer.markEndStream();
+            }
+            resultCallback.completed(new StreamingResponse(response, this));
+        }
+
+        @Override
+        public void informationResponse(HttpResponse response, HttpContext context) {
+            // Informational responses carry no body for the caller
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            this.capacityChannel = capacityChannel;
+            buffer.updateCapacity(capacityChannel);
+        }
+
+        @Override
+        public void consume(ByteBuffer src) throws IOException {
+            if (closed) {
+                // Not retried, unlike other I/O errors
+                throw new InterruptedIOException("Response closed before its body was fully read");
+            }
+            buffer.fill(src);
+        }
+
+        @Override
+        public void streamEnd(List<? extends Header> trailers) {
+            buffer.markEndStream();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            failure = cause;
+            buffer.abort();
+        }
+
+        @Override
+        public void releaseResources() {
+            // The buffer is released along with the consumer
+        }
+
+        /**
+         * Aborts the exchange if the body was not fully read. More data is
+         * requested from the async client, so that the exchange fails on the next
+         * chunk even if it was waiting for the buffer to be read.
+         */
+        private void close() throws IOException {
+            if (buffer.isEndStream() || failure != null) {
+                return;
+            }
+            closed = true;
+            buffer.abort();
+            CapacityChannel currentCapacityChannel = capacityChannel;
+            if (currentCapacityChannel != null) {
+                currentCapacityChannel.update(BUFFER_SIZE);
+            }
+        }
+    }
+
+    /**
+     * ClientHttpResponse whose body is read from the buffer of its consumer.
+     */
+    @RequiredArgsConstructor
+    private static class StreamingResponse implements ClientHttpResponse {
+
+        private final HttpResponse response;
+        private final StreamingResponseConsumer consumer;
+        private HttpHeaders headers;
+        private InputStream body;
+
+        @Override
+        public @NonNull HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.getCode());
+        }
+
+        @Override
+        public @NonNull String getStatusText() {
+            return response.getReasonPhrase() != null ? response.getReasonPhrase() : "";
+        }
+
+        @Override
+        public @NonNull HttpHeaders getHeaders() {
+            if (headers == null) {
+                headers = new HttpHeaders();
+                for (Header header : response.getHeaders()) {
+                    headers.add(header.getName(), header.getValue());
+                }
+            }
+            return headers;
+        }
+
+        @Override
+        public @NonNull InputStream getBody() {
+            if (body == null) {
+                body = new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        return this.checkEnd(consumer.buffer.read());
+                    }
+
+                    @Override
+                    public int read(@NonNull byte[] bytes, int offset, int length) throws IOException {
+                        return length == 0 ? 0 : this.checkEnd(consumer.buffer.read(bytes, offset, length));
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        consumer.close();
+                    }
+
+                    /**
+                     * Raises the failure of the exchange, if any, instead of ending the
+                     * stream, so that a truncated body is not mistaken for a complete one.
+                     */
+                    private int checkEnd(int result) throws IOException {
+                        if (result == -1 && consumer.failure != null) {
+                            throw new IOException("Failed to read the response body", consumer.failure);
+                        }
+                        return result;
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                consumer.close();
+            } catch (IOException e) {
+                // The exchange is failed by the async client in any case
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.function.Supplier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.lang.NonNull;
+
+/**
+ * ClientHttpRequestFactory deferring the creation of the actual request factory,
+ * together with its HttpClient, connection pool and TLS setup, until the first
+ * request. Services that are configured but never called on an instance then
+ * cost a RestTemplate and its interceptors only.
+ * <p>
+ * The delegate is created once, by the first thread sending a request, while
+ * concurrent first requests wait for it. If its creation fails, the failure is
+ * raised to the caller and creation is attempted again on the next request.
+ * </p>
+ */
+public class LazyClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private final Supplier<ClientHttpRequestFactory> requestFactorySupplier;
+    private volatile ClientHttpRequestFactory requestFactory;
+
+    public LazyClientHttpRequestFactory(Supplier<ClientHttpRequestFactory> requestFactorySupplier) {
+        this.requestFactorySupplier = requestFactorySupplier;
+    }
+
+    @Override
+    public @NonNull ClientHttpRequest createRequest(@NonNull URI uri, @NonNull HttpMethod httpMethod)
+            throws IOException {
+        return this.getRequestFactory().createRequest(uri, httpMethod);
+    }
+
+    /**
+     * Returns whether the actual request factory was already created.
+     *
+     * @return true once the first request was sent
+     */
+    public boolean isInitialized() {
+        return requestFactory != null;
+    }
+
+    /**
+     * Returns the actual request factory, creating it on first use.
+     *
+     * @return the request factory requests are delegated to
+     */
+    public ClientHttpRequestFactory getRequestFactory() {
+        ClientHttpRequestFactory currentRequestFactory = requestFactory;
+        if (currentRequestFactory == null) {
+            synchronized (this) {
+                currentRequestFactory = requestFactory;
+                if (currentRequestFactory == null) {
+                    currentRequestFactory = requestFactorySupplier.get();
+                    requestFactory = currentRequestFactory;
+                }
+            }
+        }
+        return currentRequestFactory;
+    }
+}
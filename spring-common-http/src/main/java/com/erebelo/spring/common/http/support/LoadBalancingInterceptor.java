@@ -0,0 +1,276 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import lombok.Data;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.lang.NonNull;
+
+/**
+ * ClientHttpRequestInterceptor that balances requests across the endpoints of
+ * a service. The scheme, host and port of each request URI are replaced by
+ * those of the selected endpoint, and the endpoint path, if any, is prepended
+ * to the request path, so that requests can be written against any of the
+ * endpoints or against a logical host name.
+ * <p>
+ * Endpoints are selected in turn (ROUND_ROBIN), by the lowest number of
+ * outstanding requests (LEAST_OUTSTANDING), or by comparing two random
+ * endpoints on their outstanding requests weighted by their exponentially
+ * weighted moving average latency (POWER_OF_TWO_EWMA).
+ * </p>
+ * <p>
+ * Endpoints failing consecutively, with I/O errors or 5xx responses, or whose
+ * average latency exceeds the slow threshold are ejected for the ejection time
+ * (passive outlier detection). When every endpoint is ejected, requests are
+ * balanced across all of them.
+ * </p>
+ * <p>
+ * The hedged attempt of a request is sent to another endpoint than its first
+ * attempt, so that hedging gets around a slow replica.
+ * </p>
+ */
+public class LoadBalancingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Properties properties;
+    private final List<Endpoint> endpoints;
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
+
+    public LoadBalancingInterceptor(String serviceName, Properties properties) {
+        if (properties.getEndpoints().isEmpty()) {
+            throw new IllegalStateException(
+                    String.format("No load balancing endpoints configured for service '%s'", serviceName));
+        }
+
+        this.properties = properties;
+        this.endpoints = properties.getEndpoints().stream().map(Endpoint::new).toList();
+    }
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+            @NonNull ClientHttpRequestExecution execution) throws IOException {
+        return new BalancedRequest(request, this.selectEndpoint(null)).execute(body, execution);
+    }
+
+    /**
+     * Selects the endpoint of a request among the endpoints that are not ejected.
+     * The excluded endpoint, if any, is only selected when no other endpoint is
+     * available, and ejected endpoints when every endpoint is ejected.
+     */
+    private Endpoint selectEndpoint(Endpoint excluded) {
+        long now = System.nanoTime();
+        List<Endpoint> available = this.filterEndpoints(endpoint -> endpoint != excluded && !endpoint.isEjected(now));
+        if (available.isEmpty() && excluded != null) {
+            available = this.filterEndpoints(endpoint -> endpoint != excluded);
+        }
+        if (available.isEmpty()) {
+            available = endpoints;
+        }
+
+        int offset = Math.floorMod(nextEndpoint.getAndIncrement(), available.size());
+        return switch (properties.getStrategy()) {
+            case ROUND_ROBIN -> available.get(offset);
+            case LEAST_OUTSTANDING -> this.leastOutstanding(available, offset);
+            case POWER_OF_TWO_EWMA -> this.powerOfTwoChoices(available);
+        };
+    }
+
+    private List<Endpoint> filterEndpoints(Predicate<Endpoint> filter) {
+        List<Endpoint> filtered = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (filter.test(endpoint)) {
+                filtered.add(endpoint);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Returns the endpoint with the fewest outstanding requests. The search starts
+     * at a rotating offset, so that ties are spread across the endpoints.
+     */
+    private Endpoint leastOutstanding(List<Endpoint> available, int offset) {
+        Endpoint selected = available.get(offset);
+        for (int i = 1; i < available.size(); i++) {
+            Endpoint candidate = available.get((offset + i) % available.size());
+            if (candidate.outstanding.get() < selected.outstanding.get()) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    private Endpoint powerOfTwoChoices(List<Endpoint> available) {
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint firstEndpoint = available.get(first);
+        Endpoint secondEndpoint = available.get(second);
+        return firstEndpoint.cost() <= secondEndpoint.cost() ? firstEndpoint : secondEndpoint;
+    }
+
+    private void recordResult(Endpoint endpoint, long latency, boolean failed) {
+        synchronized (endpoint) {
+            endpoint.latencyEwma = endpoint.latencyEwma == 0
+                    ? latency
+                    : endpoint.latencyEwma + properties.getEwmaWeight() * (latency - endpoint.latencyEwma);
+            endpoint.consecutiveFailures = failed ? endpoint.consecutiveFailures + 1 : 0;
+
+            boolean slow = properties.getSlowThreshold() != null
+                    && endpoint.latencyEwma > TimeUnit.MILLISECONDS.toNanos(properties.getSlowThreshold());
+            if (endpoint.consecutiveFailures >= properties.getFailureThreshold() || slow) {
+                endpoint.ejectedUntil = System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(properties.getEjectionTime());
+                endpoint.consecutiveFailures = 0;
+                endpoint.latencyEwma = 0;
+            }
+        }
+    }
+
+    /**
+     * Request sent to the endpoint selected for it. Additional attempts of the
+     * request, such as hedges, are sent to another endpoint through
+     * {@link #toAnotherEndpoint()}, so that they do not wait on the same replica.
+     */
+    public final class BalancedRequest extends HttpRequestWrapper {
+
+        private final Endpoint endpoint;
+        private final URI uri;
+
+        private BalancedRequest(HttpRequest request, Endpoint endpoint) {
+            super(request);
+            this.endpoint = endpoint;
+            this.uri = endpoint.resolve(request.getURI());
+        }
+
+        @Override
+        public @NonNull URI getURI() {
+            return uri;
+        }
+
+        /**
+         * Returns the original request balanced to another endpoint, for an
+         * additional attempt. The endpoint of this request is only selected again
+         * when the service has no other endpoint.
+         *
+         * @return the request balanced to another endpoint
+         */
+        public BalancedRequest toAnotherEndpoint() {
+            return new BalancedRequest(this.getRequest(), LoadBalancingInterceptor.this.selectEndpoint(endpoint));
+        }
+
+        /**
+         * Sends the request to its endpoint and records the outcome in the endpoint
+         * statistics. When the request is hedged, the first attempt is recorded with
+         * the outcome and latency of the winning attempt.
+         *
+         * @param body
+         *            the body of the request
+         * @param execution
+         *            the execution resuming the interceptor chain
+         * @return the response of the request
+         * @throws IOException
+         *             in case of I/O errors
+         */
+        public ClientHttpResponse execute(byte[] body, ClientHttpRequestExecution execution) throws IOException {
+            endpoint.outstanding.incrementAndGet();
+            long startTime = System.nanoTime();
+            boolean failed = true;
+            try {
+                ClientHttpResponse response = execution.execute(this, body);
+                failed = response.getStatusCode().is5xxServerError();
+                return response;
+            } finally {
+                endpoint.outstanding.decrementAndGet();
+                LoadBalancingInterceptor.this.recordResult(endpoint, System.nanoTime() - startTime, failed);
+            }
+        }
+    }
+
+    /**
+     * Endpoint of the service along with its load and health statistics.
+     */
+    private static final class Endpoint {
+
+        private final String baseUri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile double latencyEwma;
+        private volatile long ejectedUntil;
+        private int consecutiveFailures;
+
+        private Endpoint(String baseUri) {
+            URI uri = URI.create(baseUri);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                throw new IllegalStateException("Load balancing endpoint must be an absolute URI: " + baseUri);
+            }
+            this.baseUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+        }
+
+        private boolean isEjected(long now) {
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        private double cost() {
+            return latencyEwma * (outstanding.get() + 1);
+        }
+
+        /**
+         * Resolves the request URI against this endpoint, keeping the raw path,
+         * query and fragment of the request.
+         */
+        private URI resolve(URI requestUri) {
+            StringBuilder uri = new StringBuilder(baseUri);
+            if (requestUri.getRawPath() != null) {
+                uri.append(requestUri.getRawPath());
+            }
+            if (requestUri.getRawQuery() != null) {
+                uri.append('?').append(requestUri.getRawQuery());
+            }
+            if (requestUri.getRawFragment() != null) {
+                uri.append('#').append(requestUri.getRawFragment());
+            }
+            return URI.create(uri.toString());
+        }
+    }
+
+    /**
+     * Load balancing strategies.
+     */
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_OUTSTANDING, POWER_OF_TWO_EWMA
+    }
+
+    /**
+     * A data class that holds load balancing properties. Load balancing is
+     * enabled when endpoints are configured, given as absolute base URIs. The EWMA
+     * weight is the weight of each new latency sample in the average. Slow
+     * endpoints are only ejected when a slow threshold is set. All durations are
+     * expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private List<String> endpoints = new ArrayList<>();
+        private Strategy strategy = Strategy.ROUND_ROBIN;
+        private int failureThreshold = 5;
+        private long ejectionTime = 30000L;
+        private Long slowThreshold;
+        private double ewmaWeight = 0.3;
+    }
+}
@@ -0,0 +1,58 @@
+package com.erebelo.spring.common.http.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+
+/**
+ * Utility class for configuring the HTTP protocol version used by the clients.
+ * It provides methods to create the TLS and HTTP/2 settings matching the
+ * configured protocol.
+ */
+@UtilityClass
+public class ProtocolConfiguration {
+
+    /**
+     * Creates a TlsConfig instance with the version policy matching the given
+     * protocol. With NEGOTIATE, HTTP/2 is selected through ALPN whenever the
+     * server supports it.
+     *
+     * @param protocol
+     *            the protocol configured for the service
+     * @return a configured TlsConfig instance
+     */
+    public static TlsConfig tlsConfig(Protocol protocol) {
+        return TlsConfig.custom().setVersionPolicy(protocol.getVersionPolicy()).build();
+    }
+
+    /**
+     * Creates an H2Config instance for HTTP/2 connections. Server push is disabled,
+     * as responses are only expected for the requests sent by the client. The
+     * requests in flight on a connection are capped by the
+     * {@link StreamLimitInterceptor} and the settings of the server, not by this
+     * configuration, whose concurrent streams only bound pushed ones.
+     *
+     * @return a configured H2Config instance
+     */
+    public static H2Config h2Config() {
+        return H2Config.custom().setPushEnabled(false).build();
+    }
+
+    /**
+     * The HTTP protocol versions supported by the clients. HTTP1 keeps the classic
+     * blocking client, while HTTP2 multiplexes concurrent requests as streams over
+     * a single connection per route.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Protocol {
+        HTTP1(HttpVersionPolicy.FORCE_HTTP_1),
+        HTTP2(HttpVersionPolicy.FORCE_HTTP_2),
+        NEGOTIATE(HttpVersionPolicy.NEGOTIATE);
+
+        private final HttpVersionPolicy versionPolicy;
+    }
+}
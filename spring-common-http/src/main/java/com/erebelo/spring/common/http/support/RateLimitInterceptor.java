@@ -0,0 +1,161 @@
+package com.erebelo.spring.common.http.support;
+
+import com.erebelo.spring.common.http.RateLimitExceededException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.Data;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Exec interceptor that limits the rate of requests sent to a service with a
+ * token bucket, so that quotas enforced by the service are not exceeded. The
+ * bucket holds up to the burst size of permits and is refilled at the
+ * configured rate.
+ * <p>
+ * It is added to the exec chain of the HttpClient of the service, classic or
+ * async, after the retry element, so that every request actually sent takes a
+ * permit, retries and hedged attempts included. Requests served from the
+ * response cache take none, and coalesced requests share a single one.
+ * </p>
+ * <p>
+ * The bucket is implemented as a generic cell rate algorithm: a single atomic
+ * value holds the time at which the bucket would be full again, and each
+ * request moves it forward by the emission interval with a compare-and-set, so
+ * that no lock is taken even under high thread counts.
+ * </p>
+ * <p>
+ * In BLOCK mode a request without an available permit reserves the next one
+ * and waits for it, unless the wait would exceed the maximum wait, in which
+ * case it is rejected. Async requests do not block a thread while waiting, as
+ * they are resumed by the scheduler of the async client once their permit is
+ * available. In REJECT mode a request is rejected right away. Rejected
+ * requests are not sent and raise a {@link RateLimitExceededException}.
+ * </p>
+ */
+public class RateLimitInterceptor implements ExecChainHandler, AsyncExecChainHandler {
+
+    private final String serviceName;
+    private final Properties properties;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final AtomicLong theoreticalArrivalTime;
+
+    public RateLimitInterceptor(String serviceName, Properties properties) {
+        if (properties.getPermitsPerSecond() <= 0 || properties.getBurst() < 1) {
+            throw new IllegalStateException(String.format(
+                    "Rate limit of service '%s' must have positive permits per second and burst", serviceName));
+        }
+
+        this.serviceName = serviceName;
+        this.properties = properties;
+        this.emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getPermitsPerSecond());
+        this.burstTolerance = emissionInterval * (properties.getBurst() - 1);
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public ClassicHttpResponse execute(ClassicHttpRequest request, ExecChain.Scope scope, ExecChain chain)
+            throws IOException, HttpException {
+        long waitTime = this.acquire();
+        if (waitTime > 0) {
+            this.await(waitTime);
+        }
+        return chain.proceed(request, scope);
+    }
+
+    @Override
+    public void execute(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+            AsyncExecChain chain, AsyncExecCallback asyncExecCallback) throws HttpException, IOException {
+        long waitTime;
+        try {
+            waitTime = this.acquire();
+        } catch (RateLimitExceededException e) {
+            // Retries run on the threads of the async client, so failures are reported to the exchange
+            asyncExecCallback.failed(e);
+            return;
+        }
+
+        if (waitTime > 0 && scope.scheduler != null) {
+            scope.scheduler.scheduleExecution(request, entityProducer, scope, chain, asyncExecCallback,
+                    TimeValue.of(waitTime, TimeUnit.NANOSECONDS));
+        } else {
+            if (waitTime > 0) {
+                this.await(waitTime);
+            }
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+        }
+    }
+
+    /**
+     * Reserves a permit for a new request.
+     *
+     * @return the time to wait for the permit, in nanoseconds
+     * @throws RateLimitExceededException
+     *             if no permit is available within the allowed wait
+     */
+    private long acquire() {
+        long maxWait = properties.getMode() == Mode.BLOCK ? TimeUnit.MILLISECONDS.toNanos(properties.getMaxWait()) : 0L;
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrivalTime.get();
+            long start = current - now > 0 ? current : now;
+            long waitTime = start - burstTolerance - now;
+            if (waitTime > maxWait) {
+                throw new RateLimitExceededException(
+                        String.format("Rate limit of %s requests per second exceeded for service '%s'",
+                                properties.getPermitsPerSecond(), serviceName));
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, start + emissionInterval)) {
+                return waitTime;
+            }
+        }
+    }
+
+    private void await(long waitTime) {
+        long deadline = System.nanoTime() + waitTime;
+        long remaining = waitTime;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new RateLimitExceededException(String
+                        .format("Interrupted while waiting for the rate limit of service '%s'", serviceName));
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Rate limiting modes.
+     */
+    public enum Mode {
+        BLOCK, REJECT
+    }
+
+    /**
+     * A data class that holds rate limit properties. Limiting is disabled by
+     * default. The burst is the number of requests that can be sent at once after
+     * a quiet period. In BLOCK mode requests wait for a permit up to the maximum
+     * wait, expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private boolean enabled;
+        private double permitsPerSecond = 10.0;
+        private int burst = 10;
+        private Mode mode = Mode.BLOCK;
+        private long maxWait = 1000L;
+    }
+}
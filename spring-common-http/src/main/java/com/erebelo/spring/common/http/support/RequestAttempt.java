@@ -0,0 +1,110 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.net.URI;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.NonNull;
+
+/**
+ * Attempt of a request that can be cancelled while in flight. The request
+ * factories register the HttpClient request sent by the attempt running on the
+ * current thread, so that cancelling the attempt aborts that request, which
+ * closes its connection or resets its HTTP/2 stream. Interrupting the thread
+ * does not stop a blocking socket read, so this is how the losing attempt of a
+ * hedged request is stopped.
+ */
+public final class RequestAttempt {
+
+    private static final ThreadLocal<RequestAttempt> CURRENT = new ThreadLocal<>();
+
+    private volatile Cancellable request;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a request factory for the given classic HttpClient registering its
+     * requests with the current attempt, if any.
+     *
+     * @param httpClient
+     *            the HttpClient sending the requests
+     * @return a ClientHttpRequestFactory for the RestTemplate
+     */
+    public static ClientHttpRequestFactory requestFactory(HttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient) {
+            @Override
+            protected @NonNull ClassicHttpRequest createHttpUriRequest(@NonNull HttpMethod httpMethod,
+                    @NonNull URI uri) {
+                ClassicHttpRequest httpRequest = super.createHttpUriRequest(httpMethod, uri);
+                if (httpRequest instanceof Cancellable cancellableRequest) {
+                    register(cancellableRequest);
+                }
+                return httpRequest;
+            }
+        };
+    }
+
+    /**
+     * Registers the HttpClient request sent by the attempt running on the current
+     * thread. It is aborted right away if the attempt was already cancelled.
+     *
+     * @param request
+     *            the request to abort when the attempt is cancelled
+     */
+    static void register(Cancellable request) {
+        RequestAttempt attempt = CURRENT.get();
+        if (attempt != null) {
+            attempt.request = request;
+            if (attempt.cancelled) {
+                request.cancel();
+            }
+        }
+    }
+
+    /**
+     * Executes the attempt on the current thread.
+     *
+     * @param execution
+     *            the execution of the request
+     * @return the response of the request
+     * @throws IOException
+     *             in case of I/O errors, including the attempt being cancelled
+     */
+    ClientHttpResponse execute(Execution execution) throws IOException {
+        RequestAttempt previousAttempt = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return execution.execute();
+        } finally {
+            if (previousAttempt != null) {
+                CURRENT.set(previousAttempt);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Cancels the attempt, aborting its request if it was already sent.
+     */
+    void cancel() {
+        cancelled = true;
+        Cancellable currentRequest = request;
+        if (currentRequest != null) {
+            currentRequest.cancel();
+        }
+    }
+
+    /**
+     * Execution of the request of an attempt.
+     */
+    @FunctionalInterface
+    interface Execution {
+
+        ClientHttpResponse execute() throws IOException;
+    }
+}
@@ -0,0 +1,59 @@
+package com.erebelo.spring.common.http.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket bounding the number of additional attempts (retries or hedges)
+ * to a share of the live traffic. Every request deposits a fraction of a token,
+ * up to a maximum, and every additional attempt withdraws a whole token. Once
+ * the bucket is empty, additional attempts are refused until enough requests
+ * refill it, which keeps them from amplifying the load during an outage.
+ */
+class RequestBudget {
+
+    private static final int TOKEN_SCALE = 1000;
+
+    private final int depositPerRequest;
+    private final int maxTokens;
+    private final AtomicInteger tokens;
+
+    /**
+     * @param ratio
+     *            the share of requests that can be followed by an additional
+     *            attempt
+     * @param maxTokens
+     *            the maximum number of tokens, bounding the additional attempts
+     *            allowed in a burst
+     */
+    RequestBudget(double ratio, int maxTokens) {
+        this.depositPerRequest = (int) Math.round(ratio * TOKEN_SCALE);
+        this.maxTokens = maxTokens * TOKEN_SCALE;
+        this.tokens = new AtomicInteger(this.maxTokens);
+    }
+
+    /**
+     * Deposits the share of a token earned by a request.
+     */
+    void deposit() {
+        tokens.getAndUpdate(current -> Math.min(current + depositPerRequest, maxTokens));
+    }
+
+    /**
+     * Withdraws a token for an additional attempt.
+     *
+     * @return true if a token was available, false if the attempt must not be
+     *         made
+     */
+    boolean tryWithdraw() {
+        return tokens.getAndUpdate(current -> current >= TOKEN_SCALE ? current - TOKEN_SCALE : current)
+                >= TOKEN_SCALE;
+    }
+
+    /**
+     * Gives back a token withdrawn for an additional attempt that was not made
+     * after all.
+     */
+    void refund() {
+        tokens.getAndUpdate(current -> Math.min(current + TOKEN_SCALE, maxTokens));
+    }
+}
@@ -22,7 +22,26 @@ public class RequestConfiguration {
      * @return a configured RequestConfig instance
      */
     public static RequestConfig requestConfig(Properties properties) {
-        return RequestConfig.custom().setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.connTimeout))
+        return requestConfig(properties, null);
+    }
+
+    /**
+     * Creates a RequestConfig instance with custom timeout settings, using the
+     * given lease timeout to bound how long a request waits for a pooled
+     * connection. When no lease timeout is provided, the connection timeout is
+     * used instead.
+     *
+     * @param properties
+     *            the timeout settings to apply to the request configuration
+     * @param leaseTimeout
+     *            the maximum time (ms) to wait for a connection from the pool, or
+     *            null to fall back to the connection timeout
+     * @return a configured RequestConfig instance
+     */
+    public static RequestConfig requestConfig(Properties properties, Long leaseTimeout) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(
+                        Timeout.ofMilliseconds(leaseTimeout != null ? leaseTimeout : properties.connTimeout))
                 .setResponseTimeout(Timeout.ofMilliseconds(properties.connReadTimeout)).build();
     }
 
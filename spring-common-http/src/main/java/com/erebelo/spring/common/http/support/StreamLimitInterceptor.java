@@ -0,0 +1,132 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+
+/**
+ * Async exec interceptor that caps the number of requests in flight on the
+ * HTTP/2 connection of each route. HTTP/2 clients send all the requests to a
+ * route over a single connection, where concurrent streams are otherwise only
+ * bounded by the MAX_CONCURRENT_STREAMS setting of the server: the setting
+ * announced by the client only bounds the streams the server may open, which
+ * are never used with server push disabled.
+ * <p>
+ * Requests beyond the limit are queued without holding a thread, and sent in
+ * order as the requests in flight to the route complete. It is added to the
+ * exec chain after the retry element, so that every attempt takes a stream,
+ * and before the deadline element, so that the timeouts of a queued request
+ * are shortened to the time left when it is actually sent.
+ * </p>
+ */
+public class StreamLimitInterceptor implements AsyncExecChainHandler {
+
+    private final int maxConcurrentStreams;
+    private final Map<HttpRoute, RouteStreams> routeStreams = new ConcurrentHashMap<>();
+
+    public StreamLimitInterceptor(int maxConcurrentStreams) {
+        if (maxConcurrentStreams < 1) {
+            throw new IllegalStateException("Max concurrent streams must be positive: " + maxConcurrentStreams);
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    @Override
+    public void execute(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+            AsyncExecChain chain, AsyncExecCallback asyncExecCallback) {
+        RouteStreams streams = routeStreams.computeIfAbsent(scope.route, route -> new RouteStreams());
+        streams.submit(() -> this.proceed(request, entityProducer, scope, chain, asyncExecCallback, streams));
+    }
+
+    /**
+     * Sends the request on a stream taken from the limit of its route. The stream
+     * is given back once the exchange completes or fails, cancellations included.
+     */
+    private void proceed(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+            AsyncExecChain chain, AsyncExecCallback asyncExecCallback, RouteStreams streams) {
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                streams.release();
+            }
+        };
+
+        try {
+            chain.proceed(request, entityProducer, scope, new AsyncExecCallback() {
+
+                @Override
+                public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails)
+                        throws HttpException, IOException {
+                    return asyncExecCallback.handleResponse(response, entityDetails);
+                }
+
+                @Override
+                public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+                    asyncExecCallback.handleInformationResponse(response);
+                }
+
+                @Override
+                public void completed() {
+                    release.run();
+                    asyncExecCallback.completed();
+                }
+
+                @Override
+                public void failed(Exception cause) {
+                    release.run();
+                    asyncExecCallback.failed(cause);
+                }
+            });
+        } catch (HttpException | IOException | RuntimeException e) {
+            // Queued requests are sent from the callbacks of other exchanges, so failures are reported to the exchange
+            release.run();
+            asyncExecCallback.failed(e);
+        }
+    }
+
+    /**
+     * Streams in flight to a route, with the requests waiting for one. A released
+     * stream is handed over to the first waiting request, if any.
+     */
+    private final class RouteStreams {
+
+        private final Queue<Runnable> waitingRequests = new ArrayDeque<>();
+        private int inFlight;
+
+        void submit(Runnable request) {
+            synchronized (this) {
+                if (inFlight >= maxConcurrentStreams) {
+                    waitingRequests.add(request);
+                    return;
+                }
+                inFlight++;
+            }
+            request.run();
+        }
+
+        void release() {
+            Runnable nextRequest;
+            synchronized (this) {
+                nextRequest = waitingRequests.poll();
+                if (nextRequest == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            nextRequest.run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.erebelo.spring.common.http.support;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import lombok.Data;
+import lombok.experimental.UtilityClass;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.ssl.TLS;
+import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Utility class for configuring TLS. It provides the TLS strategy used by the
+ * classic and async connection pools, built around its own SSLContext. The
+ * strategy is created once by the HttpAsyncClientProvider and shared by all
+ * the pools, so that its client session cache is shared as well. Connections
+ * to a host already contacted by any pool can then resume the TLS session
+ * (session IDs for TLS 1.2, session tickets for TLS 1.3) with an abbreviated
+ * handshake instead of a full one.
+ */
+@UtilityClass
+public class TlsConfiguration {
+
+    /**
+     * Creates a TLS strategy for the given TLS properties, together with its
+     * SSLContext and session cache. The returned strategy can be used by both
+     * classic and async clients.
+     *
+     * @param properties
+     *            the TLS settings holding the trust material and session cache
+     *            configuration
+     * @return a TlsStrategy configured for secure connections
+     * @throws IllegalStateException
+     *             if an error occurs during SSL context configuration
+     */
+    public static TlsStrategy tlsStrategy(Properties properties) {
+        return ClientTlsStrategyBuilder.create().setSslContext(sslContext(properties))
+                .setTlsVersions(TLS.V_1_2, TLS.V_1_3).build();
+    }
+
+    /**
+     * Creates the SSLContext and sizes its client session cache. When trusting
+     * all certificates, any X509 certificate is accepted. Otherwise certificates
+     * are validated against the configured trust store or, if none is
+     * configured, against the JVM default trust store.
+     *
+     * @param properties
+     *            the TLS settings
+     * @return an SSLContext instance
+     * @throws IllegalStateException
+     *             if an error occurs during SSL context configuration
+     */
+    public static SSLContext sslContext(Properties properties) {
+        try {
+            SSLContext sslContext;
+            if (properties.isTrustAll()) {
+                // Create an SSLContext that allows any certificate
+                sslContext = SSLContexts.custom().loadTrustMaterial((x509Certificates, s) -> true).build();
+            } else if (properties.getTrustStore() != null) {
+                sslContext = SSLContextBuilder.create().setKeyStoreType(properties.getTrustStoreType())
+                        .loadTrustMaterial(ResourceUtils.getURL(properties.getTrustStore()),
+                                properties.getTrustStorePassword() != null
+                                        ? properties.getTrustStorePassword().toCharArray()
+                                        : null)
+                        .build();
+            } else {
+                sslContext = SSLContexts.createDefault();
+            }
+
+            SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+            sessionContext.setSessionCacheSize(properties.getSessionCacheSize());
+            sessionContext.setSessionTimeout((int) TimeUnit.MILLISECONDS.toSeconds(properties.getSessionTimeout()));
+            return sslContext;
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to configure SSLContext", e);
+        }
+    }
+
+    /**
+     * A data class that holds TLS properties. All certificates are trusted by
+     * default; when disabled, the trust store is loaded from the given resource
+     * location (e.g. classpath: or file:). The session cache settings match the
+     * JDK defaults, a cache size of 0 meaning no limit. The session timeout is
+     * expressed in milliseconds.
+     */
+    @Data
+    public static class Properties {
+        private boolean trustAll = true;
+        private String trustStore;
+        private String trustStorePassword;
+        private String trustStoreType = "PKCS12";
+        private int sessionCacheSize = 20480;
+        private long sessionTimeout = 86400000L;
+    }
+}
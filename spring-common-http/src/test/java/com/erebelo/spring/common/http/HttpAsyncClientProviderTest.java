@@ -0,0 +1,124 @@
+package com.erebelo.spring.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.erebelo.spring.common.http.support.HttpAsyncClientRequestFactory;
+import com.erebelo.spring.common.http.support.ProtocolConfiguration;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutionException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+class HttpAsyncClientProviderTest {
+
+    private final HttpClientProperties httpClientProperties = new HttpClientProperties();
+    private final ObjectProvider<HttpClientMetrics> httpClientMetricsProvider = new DefaultListableBeanFactory()
+            .getBeanProvider(HttpClientMetrics.class);
+    private final HttpAsyncClientProvider httpAsyncClientProvider = new HttpAsyncClientProvider(
+            httpClientProperties, httpClientMetricsProvider);
+    private HttpAsyncServer h2Server;
+    private int port;
+
+    @BeforeEach
+    void setup() throws ExecutionException, InterruptedException {
+        h2Server = H2ServerBootstrap.bootstrap().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new EchoHandler()).create();
+        h2Server.start();
+
+        ListenerEndpoint listenerEndpoint = h2Server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTP)
+                .get();
+        port = ((InetSocketAddress) listenerEndpoint.getAddress()).getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpAsyncClientProvider.shutdown();
+        h2Server.close(CloseMode.IMMEDIATE);
+    }
+
+    @Test
+    void testHttp2RequestsThroughRestTemplate() {
+        HttpClientProperties.ServiceProperties serviceProperties = new HttpClientProperties.ServiceProperties();
+        serviceProperties.setProtocol(ProtocolConfiguration.Protocol.HTTP2);
+
+        RestTemplate restTemplate = new RestTemplate(new HttpAsyncClientRequestFactory(
+                httpAsyncClientProvider.getHttpAsyncClient("service", serviceProperties)));
+
+        ResponseEntity<String> response = restTemplate.exchange("http://localhost:" + port + "/echo",
+                HttpMethod.POST, new HttpEntity<>("payload"), String.class);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("HTTP/2 payload", response.getBody());
+        assertTrue(MediaType.TEXT_PLAIN.isCompatibleWith(response.getHeaders().getContentType()));
+    }
+
+    @Test
+    void testHttp2ProtocolForExternalServiceThrowsException() {
+        HttpClientProperties.ServiceProperties serviceProperties = new HttpClientProperties.ServiceProperties();
+        serviceProperties.setProtocol(ProtocolConfiguration.Protocol.HTTP2);
+        serviceProperties.setExternal(true);
+
+        assertThrows(IllegalStateException.class,
+                () -> httpAsyncClientProvider.getHttpAsyncClient("service", serviceProperties));
+    }
+
+    @Test
+    void testInvalidTrustStoreFailsOnCreation() {
+        HttpClientProperties invalidProperties = new HttpClientProperties();
+        invalidProperties.getTls().setTrustAll(false);
+        invalidProperties.getTls().setTrustStore("classpath:missing-truststore.p12");
+
+        assertThrows(IllegalStateException.class, () -> new HttpAsyncClientProvider(invalidProperties,
+                httpClientMetricsProvider));
+    }
+
+    /**
+     * Request handler that responds with the protocol version of the request
+     * followed by the request body.
+     */
+    private static class EchoHandler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request,
+                EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails != null ? new StringAsyncEntityConsumer() : null);
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger,
+                HttpContext context) throws HttpException, IOException {
+            String protocol = HttpVersion.HTTP_2.equals(context.getProtocolVersion()) ? "HTTP/2" : "HTTP/1.1";
+            responseTrigger.submitResponse(AsyncResponseBuilder.create(200)
+                    .setEntity(protocol + " " + message.getBody(), ContentType.TEXT_PLAIN).build(), context);
+        }
+    }
+}
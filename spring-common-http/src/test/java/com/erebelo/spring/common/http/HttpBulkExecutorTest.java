@@ -0,0 +1,225 @@
+package com.erebelo.spring.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.erebelo.spring.common.utils.http.RequestDeadline;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+class HttpBulkExecutorTest {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final RestOperations restOperations = mock(RestOperations.class);
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+        HeaderContextHolder.remove();
+        ThreadContext.clearAll();
+    }
+
+    @Test
+    void testResultsAreReturnedInOrderWithPerItemFailures() {
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 10);
+        List<Integer> ids = IntStream.range(0, 20).boxed().toList();
+
+        List<HttpBulkExecutor.Result<Integer, String>> results = httpBulkExecutor.executeAll(ids, 4,
+                Duration.ofSeconds(5), (rest, id) -> {
+                    assertSame(restOperations, rest);
+                    if (id % 5 == 0) {
+                        throw new RestClientException("Failed " + id);
+                    }
+                    return "value-" + id;
+                });
+
+        assertEquals(20, results.size());
+        for (int id = 0; id < 20; id++) {
+            HttpBulkExecutor.Result<Integer, String> result = results.get(id);
+            assertEquals(id, result.item());
+            assertEquals(id % 5 != 0, result.isSuccess());
+            if (result.isSuccess()) {
+                assertEquals("value-" + id, result.value());
+            } else {
+                assertInstanceOf(RestClientException.class, result.failure());
+            }
+        }
+    }
+
+    @Test
+    void testParallelismIsCappedByServiceLimit() {
+        AtomicInteger concurrentCalls = new AtomicInteger();
+        AtomicInteger maxConcurrentCalls = new AtomicInteger();
+        CountDownLatch limitReached = new CountDownLatch(3);
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 3);
+
+        List<HttpBulkExecutor.Result<Integer, Boolean>> results = httpBulkExecutor.executeAll(
+                IntStream.range(0, 30).boxed().toList(), 10, Duration.ofSeconds(5), (rest, id) -> {
+                    maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+                    // The first calls wait for each other, so that the limit is reached
+                    limitReached.countDown();
+                    boolean reached = await(limitReached);
+                    concurrentCalls.decrementAndGet();
+                    return reached;
+                });
+
+        results.forEach(result -> assertEquals(Boolean.TRUE, result.value()));
+        assertTrue(maxConcurrentCalls.get() <= 3);
+    }
+
+    @Test
+    void testParallelismLimitIsSharedByConcurrentBulkCalls() throws Exception {
+        CountDownLatch firstCallsStarted = new CountDownLatch(2);
+        CountDownLatch firstCallsReleased = new CountDownLatch(1);
+        AtomicInteger secondCalls = new AtomicInteger();
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 2);
+
+        Future<List<HttpBulkExecutor.Result<Integer, Boolean>>> firstResults = executorService
+                .submit(() -> httpBulkExecutor.executeAll(List.of(0, 1), 2, Duration.ofSeconds(5), (rest, id) -> {
+                    firstCallsStarted.countDown();
+                    return await(firstCallsReleased);
+                }));
+        assertTrue(await(firstCallsStarted));
+
+        List<HttpBulkExecutor.Result<Integer, Integer>> secondResults = httpBulkExecutor.executeAll(List.of(2, 3),
+                2, Duration.ofMillis(200), (rest, id) -> secondCalls.incrementAndGet());
+        firstCallsReleased.countDown();
+
+        assertEquals(0, secondCalls.get());
+        secondResults.forEach(result -> assertInstanceOf(TimeoutException.class, result.failure()));
+        firstResults.get(5, TimeUnit.SECONDS).forEach(result -> assertEquals(Boolean.TRUE, result.value()));
+    }
+
+    @Test
+    void testWaitingBulkCallsHoldNoThread() throws Exception {
+        CountDownLatch firstCallsStarted = new CountDownLatch(2);
+        CountDownLatch firstCallsReleased = new CountDownLatch(1);
+        AtomicInteger startedTasks = new AtomicInteger();
+        Executor countingExecutor = task -> {
+            startedTasks.incrementAndGet();
+            executorService.execute(task);
+        };
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, countingExecutor, 2);
+
+        Future<List<HttpBulkExecutor.Result<Integer, Boolean>>> firstResults = executorService
+                .submit(() -> httpBulkExecutor.executeAll(List.of(0, 1), 2, Duration.ofSeconds(5), (rest, id) -> {
+                    firstCallsStarted.countDown();
+                    return await(firstCallsReleased);
+                }));
+        assertTrue(await(firstCallsStarted));
+
+        // Bulk calls waiting for the shared limit do not start any task
+        List<Future<?>> waitingBulkCalls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waitingBulkCalls.add(executorService.submit(() -> httpBulkExecutor.executeAll(List.of(2, 3, 4), 3,
+                    Duration.ofMillis(200), (rest, id) -> id)));
+        }
+        for (Future<?> waitingBulkCall : waitingBulkCalls) {
+            waitingBulkCall.get(5, TimeUnit.SECONDS);
+        }
+        firstCallsReleased.countDown();
+
+        firstResults.get(5, TimeUnit.SECONDS).forEach(result -> assertEquals(Boolean.TRUE, result.value()));
+        assertEquals(2, startedTasks.get());
+    }
+
+    @Test
+    void testBulkDeadlineIsSentWithTheCalls() {
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 2);
+        long maxDeadline = System.currentTimeMillis() + 5000;
+
+        List<HttpBulkExecutor.Result<Integer, Long>> results = httpBulkExecutor.executeAll(List.of(1, 2), 2,
+                Duration.ofSeconds(5), (rest, id) -> RequestDeadline.getRemainingMillis());
+        results.forEach(result -> assertTrue(result.value() > 0 && result.value() <= 5000));
+
+        // An earlier deadline of the request being handled is kept
+        HeaderContextHolder.set(Map.of(RequestDeadline.REQUEST_DEADLINE_HEADER,
+                String.valueOf(maxDeadline - 4000)));
+        results = httpBulkExecutor.executeAll(List.of(1, 2), 2, Duration.ofSeconds(5),
+                (rest, id) -> RequestDeadline.getRemainingMillis());
+        results.forEach(result -> assertTrue(result.value() <= 1000));
+    }
+
+    @Test
+    void testErrorsAreReportedAsFailures() {
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 1);
+
+        List<HttpBulkExecutor.Result<Integer, Integer>> results = httpBulkExecutor.executeAll(List.of(0, 1, 2), 1,
+                Duration.ofSeconds(5), (rest, id) -> {
+                    if (id == 1) {
+                        throw new AssertionError("Failed " + id);
+                    }
+                    return id;
+                });
+
+        assertInstanceOf(AssertionError.class, results.get(1).failure());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+    }
+
+    @Test
+    void testCallsNotCompletedByDeadlineFail() {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 2);
+        List<HttpBulkExecutor.Result<Integer, Integer>> completedResults = new ArrayList<>();
+
+        httpBulkExecutor.executeEach(List.of(0, 1, 2, 3), 2, Duration.ofMillis(200), (rest, id) -> {
+            if (id != 0) {
+                await(neverReleased);
+            }
+            return id;
+        }, completedResults::add);
+
+        assertEquals(4, completedResults.size());
+        assertEquals(0, completedResults.get(0).item());
+        assertTrue(completedResults.get(0).isSuccess());
+        completedResults.subList(1, 4).forEach(result -> {
+            assertFalse(result.isSuccess());
+            assertInstanceOf(TimeoutException.class, result.failure());
+        });
+    }
+
+    @Test
+    void testCallerContextIsPropagated() {
+        Map<String, String> httpHeaders = Map.of("RequestID", "bulk-id");
+        HeaderContextHolder.set(httpHeaders);
+        ThreadContext.put("RequestID", "bulk-id");
+        HttpBulkExecutor httpBulkExecutor = new HttpBulkExecutor(restOperations, executorService, 2);
+
+        List<HttpBulkExecutor.Result<Integer, String>> results = httpBulkExecutor.executeAll(List.of(1, 2, 3), 2,
+                Duration.ofSeconds(5),
+                (rest, id) -> HeaderContextHolder.get().get("RequestID") + "/" + ThreadContext.get("RequestID"));
+
+        results.forEach(result -> assertEquals("bulk-id/bulk-id", result.value()));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
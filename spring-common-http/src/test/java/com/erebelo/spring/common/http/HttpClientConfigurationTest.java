@@ -1,16 +1,32 @@
 package com.erebelo.spring.common.http;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.erebelo.spring.common.http.support.ConnectionWarmer;
+import com.erebelo.spring.common.http.support.LazyClientHttpRequestFactory;
+import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.routing.DefaultProxyRoutePlanner;
+import org.apache.hc.core5.function.Resolver;
 import org.apache.hc.core5.http.HttpHost;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,12 +43,16 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @ExtendWith(MockitoExtension.class)
 class HttpClientConfigurationTest {
 
     private HttpClientConfiguration httpClientConfig;
+    private HttpClientProperties httpClientProperties;
     private final ConfigurableBeanFactory beanFactory = new DefaultListableBeanFactory();
     private final RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder();
 
@@ -44,17 +64,19 @@ class HttpClientConfigurationTest {
                 .collect(Collectors.toMap(e -> String.valueOf(e.getKey()), Map.Entry::getValue));
 
         // Assert the file was found and loaded
-        assertEquals(9, propertiesMap.size());
+        assertEquals(20, propertiesMap.size());
         Binder binder = new Binder(
                 ConfigurationPropertySources.from(new MapPropertySource("properties", propertiesMap)));
-        HttpClientProperties httpClientProperties = binder
+        httpClientProperties = binder
                 .bind("spring.common.http-client", Bindable.of(HttpClientProperties.class)).get();
 
         // Assert the properties values were loaded into the model
         assertNotNull(httpClientProperties);
 
         // Instantiate HttpClientConfiguration with dependencies
-        httpClientConfig = new HttpClientConfiguration(beanFactory, restTemplateBuilder, httpClientProperties);
+        httpClientConfig = new HttpClientConfiguration(beanFactory, restTemplateBuilder, httpClientProperties,
+                new HttpAsyncClientProvider(httpClientProperties, beanFactory.getBeanProvider(HttpClientMetrics.class)),
+                beanFactory.getBeanProvider(HttpClientMetrics.class));
     }
 
     @Test
@@ -82,6 +104,28 @@ class HttpClientConfigurationTest {
         assertEquals("http", httpHost.getSchemeName());
         assertEquals("localhost", httpHost.getHostName());
         assertEquals(8080, httpHost.getPort());
+
+        PoolingHttpClientConnectionManager connectionManager = getConnectionManager(restTemplate);
+        assertEquals(100, connectionManager.getMaxTotal());
+        assertEquals(20, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(50,
+                connectionManager.getMaxPerRoute(new HttpRoute(new HttpHost("https", "api.example.com", 443), null,
+                        httpHost, true)));
+
+        @SuppressWarnings("unchecked")
+        Resolver<HttpRoute, ConnectionConfig> connectionConfigResolver = (Resolver<HttpRoute, ConnectionConfig>) FieldUtils
+                .getDeclaredField(connectionManager.getClass(), "connectionConfigResolver", true)
+                .get(connectionManager);
+        ConnectionConfig connectionConfig = connectionConfigResolver.resolve(null);
+        assertEquals(60, connectionConfig.getTimeToLive().toSeconds());
+        assertEquals(2000, connectionConfig.getValidateAfterInactivity().toMilliseconds());
+
+        List<?> connectionEvictors = (List<?>) FieldUtils
+                .getDeclaredField(HttpClientConfiguration.class, "connectionEvictors", true).get(httpClientConfig);
+        assertEquals(1, connectionEvictors.size());
+
+        httpClientConfig.shutdown();
+        assertTrue(connectionEvictors.isEmpty());
     }
 
     @Test
@@ -91,5 +135,130 @@ class HttpClientConfigurationTest {
         RestTemplate serviceTwoRestTemplate = (RestTemplate) beanFactory.getBean("serviceTwoRestTemplate");
         assertNotNull(serviceTwoRestTemplate);
         assertEquals(2, serviceTwoRestTemplate.getInterceptors().size());
+        assertNotNull(beanFactory.getBean("serviceTwoStreamingClient", HttpStreamingClient.class));
+        assertNotNull(beanFactory.getBean("serviceTwoBulkExecutor", HttpBulkExecutor.class));
+    }
+
+    @Test
+    void testLazyRestTemplatesCreation() throws IllegalAccessException {
+        httpClientProperties.setLazyInit(true);
+        httpClientConfig.registerCustomClients();
+
+        RestTemplate serviceTwoRestTemplate = (RestTemplate) beanFactory.getBean("serviceTwoRestTemplate");
+        LazyClientHttpRequestFactory requestFactory = (LazyClientHttpRequestFactory) ((InterceptingClientHttpRequestFactory) serviceTwoRestTemplate
+                .getRequestFactory()).getDelegate();
+        Map<?, ?> sharedConnectionManagers = (Map<?, ?>) FieldUtils
+                .getDeclaredField(HttpClientConfiguration.class, "sharedConnectionManagers", true)
+                .get(httpClientConfig);
+        assertFalse(requestFactory.isInitialized());
+        assertTrue(sharedConnectionManagers.isEmpty());
+
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, requestFactory.getRequestFactory());
+        assertTrue(requestFactory.isInitialized());
+        assertTrue(sharedConnectionManagers.containsKey("internal"));
+
+        httpClientConfig.shutdown();
+    }
+
+    @Test
+    void testSharedPoolRestTemplatesCreation() throws IllegalAccessException {
+        httpClientConfig.registerCustomClients();
+
+        RestTemplate serviceTwoRestTemplate = (RestTemplate) beanFactory.getBean("serviceTwoRestTemplate");
+        RestTemplate serviceThreeRestTemplate = (RestTemplate) beanFactory.getBean("serviceThreeRestTemplate");
+
+        PoolingHttpClientConnectionManager connectionManager = getConnectionManager(serviceTwoRestTemplate);
+        assertSame(connectionManager, getConnectionManager(serviceThreeRestTemplate));
+        assertEquals(200, connectionManager.getMaxTotal());
+        assertEquals(5, connectionManager.getDefaultMaxPerRoute());
+
+        HttpClient httpclient = getHttpClient(serviceTwoRestTemplate);
+        RequestConfig requestConfig = (RequestConfig) FieldUtils
+                .getDeclaredField(httpclient.getClass(), "defaultConfig", true).get(httpclient);
+        assertEquals(1000, requestConfig.getConnectionRequestTimeout().toMilliseconds());
+        assertEquals(5000, requestConfig.getResponseTimeout().toMilliseconds());
+
+        httpClientConfig.shutdown();
+    }
+
+    @Test
+    void testCachedRestTemplateRevalidation() throws IOException {
+        AtomicInteger fullResponses = new AtomicInteger();
+        AtomicInteger notModifiedResponses = new AtomicInteger();
+
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            byte[] body = "reference-data".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        httpServer.start();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        try {
+            httpClientConfig.registerCustomClients();
+            RestTemplate serviceFourRestTemplate = (RestTemplate) beanFactory.getBean("serviceFourRestTemplate");
+            String url = "http://localhost:" + httpServer.getAddress().getPort() + "/reference";
+
+            assertEquals("reference-data", serviceFourRestTemplate.getForObject(url, String.class));
+            assertEquals("reference-data", serviceFourRestTemplate.getForObject(url, String.class));
+            assertEquals(1, fullResponses.get());
+            assertEquals(1, notModifiedResponses.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            HeaderContextHolder.remove();
+            httpServer.stop(0);
+            httpClientConfig.shutdown();
+        }
+    }
+
+    @Test
+    void testConnectionsAreWarmedUpOnceAfterAllClientsAreRegistered() throws IOException, IllegalAccessException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.start();
+        ConnectionWarmer.Properties warmup = httpClientProperties.getServices().get("serviceFour").getWarmup();
+        warmup.setEnabled(true);
+        warmup.setUrl("http://localhost:" + httpServer.getAddress().getPort() + "/health");
+        warmup.setConnections(2);
+
+        try {
+            httpClientConfig.restTemplate();
+            httpClientConfig.registerCustomClients();
+            PoolingHttpClientConnectionManager connectionManager = getConnectionManager(
+                    (RestTemplate) beanFactory.getBean("serviceFourRestTemplate"));
+            assertEquals(0, connectionManager.getTotalStats().getAvailable());
+
+            httpClientConfig.afterSingletonsInstantiated();
+            assertEquals(2, connectionManager.getTotalStats().getAvailable());
+
+            httpClientConfig.afterSingletonsInstantiated();
+            assertEquals(2, connectionManager.getTotalStats().getAvailable());
+        } finally {
+            httpServer.stop(0);
+            httpClientConfig.shutdown();
+        }
+    }
+
+    private static HttpClient getHttpClient(RestTemplate restTemplate) {
+        return ((HttpComponentsClientHttpRequestFactory) ((InterceptingClientHttpRequestFactory) restTemplate
+                .getRequestFactory()).getDelegate()).getHttpClient();
+    }
+
+    private static PoolingHttpClientConnectionManager getConnectionManager(RestTemplate restTemplate)
+            throws IllegalAccessException {
+        HttpClient httpclient = getHttpClient(restTemplate);
+        return (PoolingHttpClientConnectionManager) FieldUtils
+                .getDeclaredField(httpclient.getClass(), "connManager", true).get(httpclient);
     }
 }
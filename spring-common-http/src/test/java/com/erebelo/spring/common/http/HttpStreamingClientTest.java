@@ -0,0 +1,133 @@
+package com.erebelo.spring.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.erebelo.spring.common.http.support.HttpAsyncClientRequestFactory;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+class HttpStreamingClientTest {
+
+    private static final byte[] CONTENT = new byte[3 * 1024 * 1024 + 17];
+
+    private HttpServer httpServer;
+    private HttpStreamingClient httpStreamingClient;
+    private String url;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        new Random(42).nextBytes(CONTENT);
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/download", exchange -> {
+            if (!"token".equals(exchange.getRequestHeaders().getFirst("X-Auth"))) {
+                exchange.sendResponseHeaders(401, -1);
+            } else {
+                exchange.getResponseHeaders().add("X-Requested",
+                        String.valueOf(exchange.getRequestHeaders().getFirst("X-Request")));
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                exchange.getResponseBody().write(CONTENT);
+            }
+            exchange.close();
+        });
+        httpServer.start();
+        url = "http://localhost:" + httpServer.getAddress().getPort() + "/{path}";
+
+        RestTemplate restTemplate = new RestTemplate(
+                new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()));
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            request.getHeaders().add("X-Auth", "token");
+            return execution.execute(request, body);
+        });
+        httpStreamingClient = new HttpStreamingClient(restTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    void testStreamHandsOverResponseBody() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Request", "streamed");
+
+        String result = httpStreamingClient.stream(url, HttpMethod.GET, headers,
+                (responseHeaders, body) -> responseHeaders.getFirst("X-Requested") + ":"
+                        + body.transferTo(new ByteArrayOutputStream()),
+                "download");
+        assertEquals("streamed:" + CONTENT.length, result);
+    }
+
+    @Test
+    void testDownloadToFile() throws IOException {
+        Path target = tempDir.resolve("download.bin");
+        Files.write(target, new byte[CONTENT.length * 2]);
+
+        assertEquals(CONTENT.length, httpStreamingClient.download(url, null, target, "download"));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+    }
+
+    @Test
+    void testDownloadToChannel() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(CONTENT.length,
+                httpStreamingClient.download(url, null, Channels.newChannel(outputStream), "download"));
+        assertArrayEquals(CONTENT, outputStream.toByteArray());
+    }
+
+    @Test
+    void testErrorResponseIsRaised() {
+        RestTemplate restTemplate = new RestTemplate(
+                new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()));
+        HttpStreamingClient unauthenticatedClient = new HttpStreamingClient(restTemplate);
+
+        assertThrows(HttpClientErrorException.Unauthorized.class,
+                () -> unauthenticatedClient.download(url, null, tempDir.resolve("error.bin"), "download"));
+    }
+
+    @Test
+    void testStreamThroughAsyncClient() throws IOException {
+        try (CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.createDefault()) {
+            httpAsyncClient.start();
+            RestTemplate restTemplate = new RestTemplate(new HttpAsyncClientRequestFactory(httpAsyncClient));
+            restTemplate.getInterceptors().add((request, body, execution) -> {
+                request.getHeaders().add("X-Auth", "token");
+                return execution.execute(request, body);
+            });
+            HttpStreamingClient asyncStreamingClient = new HttpStreamingClient(restTemplate);
+
+            // The body is abandoned after a few bytes, which aborts the exchange
+            byte[] head = asyncStreamingClient.stream(url, HttpMethod.GET, null,
+                    (responseHeaders, body) -> body.readNBytes(16), "download");
+            assertEquals(16, head.length);
+
+            Path target = tempDir.resolve("async-download.bin");
+            assertEquals(CONTENT.length, asyncStreamingClient.download(url, null, target, "download"));
+            assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.erebelo.spring.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.erebelo.spring.common.http.support.HttpAsyncClientRequestFactory;
+import com.erebelo.spring.common.http.support.ProtocolConfiguration;
+import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class MicrometerHttpClientMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final CountDownLatch slowRequestReceived = new CountDownLatch(1);
+    private final CountDownLatch slowRequestReleased = new CountDownLatch(1);
+    private HttpServer httpServer;
+    private HttpAsyncClientProvider httpAsyncClientProvider;
+    private HttpClientConfiguration httpClientConfig;
+
+    @BeforeEach
+    void setup() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/slow")) {
+                slowRequestReceived.countDown();
+                await(slowRequestReleased);
+            }
+            byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        httpServer.setExecutor(serverExecutor);
+        httpServer.start();
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        beanFactory.registerSingleton("httpClientMetrics",
+                new MicrometerHttpClientMetrics(beanFactory.getBeanProvider(MeterRegistry.class)));
+
+        HttpClientProperties.ServiceProperties serviceProperties = new HttpClientProperties.ServiceProperties();
+        serviceProperties.getPool().setMaxPerRoute(1);
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        httpClientProperties.getServices().put(HttpClientConfiguration.DEFAULT_REST_TEMPLATE_NAME, serviceProperties);
+        httpAsyncClientProvider = new HttpAsyncClientProvider(httpClientProperties,
+                beanFactory.getBeanProvider(HttpClientMetrics.class));
+        httpClientConfig = new HttpClientConfiguration(beanFactory, new RestTemplateBuilder(), httpClientProperties,
+                httpAsyncClientProvider, beanFactory.getBeanProvider(HttpClientMetrics.class));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowRequestReleased.countDown();
+        httpServer.stop(0);
+        serverExecutor.shutdownNow();
+        httpClientConfig.shutdown();
+        httpAsyncClientProvider.shutdown();
+        RequestContextHolder.resetRequestAttributes();
+        HeaderContextHolder.remove();
+    }
+
+    @Test
+    void testRequestAndPoolMetrics() {
+        RestTemplate restTemplate = httpClientConfig.restTemplate();
+        String url = "http://localhost:" + httpServer.getAddress().getPort() + "/metrics";
+
+        restTemplate.getForObject(url, String.class);
+        restTemplate.getForObject(url, String.class);
+
+        Timer requestTimer = meterRegistry.get(MicrometerHttpClientMetrics.REQUESTS_METRIC).tag("service", "default")
+                .tag("method", "GET").tag("status", "200").tag("exception", "none").timer();
+        assertEquals(2, requestTimer.count());
+        assertEquals(1, meterRegistry.get(MicrometerHttpClientMetrics.REQUESTS_METRIC).timers().size());
+        assertEquals(0, requestTimer.takeSnapshot().percentileValues().length);
+        assertEquals(2, meterRegistry.get(MicrometerHttpClientMetrics.CONNECTION_ACQUIRE_METRIC)
+                .tag("service", "default").timer().count());
+
+        assertEquals(25, meterRegistry.get(MicrometerHttpClientMetrics.POOL_METRIC_PREFIX + "max")
+                .tag("pool", "default").gauge().value());
+        assertEquals(0, meterRegistry.get(MicrometerHttpClientMetrics.POOL_METRIC_PREFIX + "leased")
+                .tag("pool", "default").gauge().value());
+        assertEquals(1, meterRegistry.get(MicrometerHttpClientMetrics.POOL_METRIC_PREFIX + "available")
+                .tag("pool", "default").gauge().value());
+    }
+
+    @Test
+    void testAsyncPoolMetrics() {
+        HttpClientProperties.ServiceProperties serviceProperties = new HttpClientProperties.ServiceProperties();
+        serviceProperties.setProtocol(ProtocolConfiguration.Protocol.NEGOTIATE);
+        RestTemplate classicRestTemplate = httpClientConfig.restTemplate();
+        RestTemplate asyncRestTemplate = new RestTemplate(new HttpAsyncClientRequestFactory(
+                httpAsyncClientProvider.getHttpAsyncClient(HttpClientConfiguration.DEFAULT_REST_TEMPLATE_NAME,
+                        serviceProperties)));
+        String url = "http://localhost:" + httpServer.getAddress().getPort() + "/metrics";
+
+        classicRestTemplate.getForObject(url, String.class);
+        assertEquals("ok", asyncRestTemplate.getForObject(url, String.class));
+
+        // The classic and async pools of the service are summed up under its pool name
+        assertEquals(50, meterRegistry.get(MicrometerHttpClientMetrics.POOL_METRIC_PREFIX + "max")
+                .tag("pool", "default").gauge().value());
+        assertEquals(1, meterRegistry.get(MicrometerHttpClientMetrics.POOL_METRIC_PREFIX + "max").gauges().size());
+        assertEquals(2, meterRegistry.get(MicrometerHttpClientMetrics.CONNECTION_ACQUIRE_METRIC)
+                .tag("service", "default").timer().count());
+    }
+
+    @Test
+    void testConnectionAcquireMeasuresPoolWait() throws Exception {
+        RestTemplate restTemplate = httpClientConfig.restTemplate();
+        String url = "http://localhost:" + httpServer.getAddress().getPort();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(2);
+        long minimumWait;
+
+        try {
+            // The slow request holds the only connection of the pool until released
+            Future<String> slowResponse = clientExecutor.submit(() -> restTemplate.getForObject(url + "/slow",
+                    String.class));
+            assertTrue(await(slowRequestReceived));
+            Future<String> waitingResponse = clientExecutor.submit(() -> restTemplate.getForObject(url + "/fast",
+                    String.class));
+            Gauge pending = meterRegistry.get(MicrometerHttpClientMetrics.POOL_METRIC_PREFIX + "pending")
+                    .tag("pool", "default").gauge();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pending.value() < 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(1, pending.value());
+
+            long waitStart = System.nanoTime();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            minimumWait = System.nanoTime() - waitStart;
+            slowRequestReleased.countDown();
+
+            assertEquals("ok", slowResponse.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", waitingResponse.get(5, TimeUnit.SECONDS));
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+
+        Timer acquireTimer = meterRegistry.get(MicrometerHttpClientMetrics.CONNECTION_ACQUIRE_METRIC)
+                .tag("service", "default").timer();
+        assertEquals(2, acquireTimer.count());
+        assertTrue(acquireTimer.max(TimeUnit.NANOSECONDS) >= minimumWait);
+    }
+
+    @Test
+    void testFailedRequestMetrics() {
+        RestTemplate restTemplate = httpClientConfig.restTemplate();
+        String url = "http://localhost:" + httpServer.getAddress().getPort() + "/metrics";
+        httpServer.stop(0);
+
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(url, String.class));
+
+        assertEquals(1, meterRegistry.get(MicrometerHttpClientMetrics.REQUESTS_METRIC).tag("service", "default")
+                .tag("status", "CLIENT_ERROR").tag("exception", "HttpHostConnectException").timer().count());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
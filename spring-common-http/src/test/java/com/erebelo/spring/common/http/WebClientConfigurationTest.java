@@ -0,0 +1,134 @@
+package com.erebelo.spring.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.erebelo.spring.common.http.support.RateLimitInterceptor;
+import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.WebClient;
+
+class WebClientConfigurationTest {
+
+    private static final String REQUEST_ID_HEADER = "RequestID";
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    private final Map<String, String> receivedHeaders = new ConcurrentHashMap<>();
+    private HttpServer httpServer;
+    private HttpAsyncClientProvider httpAsyncClientProvider;
+    private HttpClientProperties.ServiceProperties rateLimitedProperties;
+    private WebClientConfiguration webClientConfig;
+
+    @BeforeEach
+    void setup() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            exchange.getRequestHeaders()
+                    .forEach((name, values) -> receivedHeaders.put(name.toLowerCase(), values.get(0)));
+            byte[] body = "OK".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        httpServer.start();
+
+        HttpClientProperties.AuthProperties authProperties = new HttpClientProperties.AuthProperties();
+        authProperties.setUser("auth-user");
+        authProperties.setPwd("auth-pwd");
+        HttpClientProperties.ServiceProperties serviceTwoProperties = new HttpClientProperties.ServiceProperties();
+        serviceTwoProperties.setAuth(authProperties);
+
+        rateLimitedProperties = new HttpClientProperties.ServiceProperties();
+        rateLimitedProperties.getRateLimit().setEnabled(true);
+        rateLimitedProperties.getRateLimit().setPermitsPerSecond(0.1);
+        rateLimitedProperties.getRateLimit().setBurst(1);
+        rateLimitedProperties.getRateLimit().setMode(RateLimitInterceptor.Mode.REJECT);
+
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        httpClientProperties.getServices().put("serviceTwo", serviceTwoProperties);
+        httpClientProperties.getServices().put("rateLimited", rateLimitedProperties);
+
+        httpAsyncClientProvider = new HttpAsyncClientProvider(httpClientProperties,
+                beanFactory.getBeanProvider(HttpClientMetrics.class));
+        webClientConfig = new WebClientConfiguration(beanFactory, beanFactory.getBeanProvider(WebClient.Builder.class),
+                httpClientProperties, httpAsyncClientProvider);
+
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.addHeader(REQUEST_ID_HEADER, "request-id");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpAsyncClientProvider.shutdown();
+        httpServer.stop(0);
+        RequestContextHolder.resetRequestAttributes();
+        HeaderContextHolder.remove();
+    }
+
+    @Test
+    void testPrimaryWebClientPropagatesTraceHeaders() {
+        WebClient webClient = webClientConfig.webClient();
+        assertNotNull(webClient);
+
+        String response = webClient.get().uri(this.getServerUrl()).retrieve().bodyToMono(String.class).block();
+
+        assertEquals("OK", response);
+        assertEquals("request-id", receivedHeaders.get(REQUEST_ID_HEADER.toLowerCase()));
+        assertFalse(receivedHeaders.containsKey("authorization"));
+    }
+
+    @Test
+    void testAdditionalWebClientsCreation() {
+        webClientConfig.registerCustomClients();
+
+        WebClient serviceTwoWebClient = (WebClient) beanFactory.getBean("serviceTwoWebClient");
+        assertNotNull(serviceTwoWebClient);
+
+        serviceTwoWebClient.get().uri(this.getServerUrl()).retrieve().toBodilessEntity().block();
+
+        String credentials = Base64.getEncoder().encodeToString("auth-user:auth-pwd".getBytes(StandardCharsets.UTF_8));
+        assertEquals("Basic " + credentials, receivedHeaders.get("authorization"));
+        assertEquals("request-id", receivedHeaders.get(REQUEST_ID_HEADER.toLowerCase()));
+    }
+
+    @Test
+    void testRateLimitIsSharedWithRestTemplate() {
+        webClientConfig.registerCustomClients();
+        WebClient rateLimitedWebClient = (WebClient) beanFactory.getBean("rateLimitedWebClient");
+
+        rateLimitedWebClient.get().uri(this.getServerUrl()).retrieve().toBodilessEntity().block();
+        Exception exception = assertThrows(Exception.class,
+                () -> rateLimitedWebClient.get().uri(this.getServerUrl()).retrieve().toBodilessEntity().block());
+
+        assertInstanceOf(RateLimitExceededException.class, NestedExceptionUtils.getMostSpecificCause(exception));
+        // The RestTemplate of the service gets the same limit
+        assertSame(httpAsyncClientProvider.getRateLimitInterceptor("rateLimited", rateLimitedProperties),
+                httpAsyncClientProvider.getRateLimitInterceptor("rateLimited", rateLimitedProperties));
+        assertNull(httpAsyncClientProvider.getRateLimitInterceptor("serviceTwo",
+                new HttpClientProperties.ServiceProperties()));
+    }
+
+    private String getServerUrl() {
+        return "http://localhost:" + httpServer.getAddress().getPort() + "/";
+    }
+}
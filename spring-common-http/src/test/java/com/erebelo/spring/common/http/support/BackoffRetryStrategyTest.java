@@ -0,0 +1,123 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.erebelo.spring.common.utils.http.RequestDeadline;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.junit.jupiter.api.Test;
+
+class BackoffRetryStrategyTest {
+
+    private final BackoffRetryStrategy.Properties properties = new BackoffRetryStrategy.Properties();
+
+    @Test
+    void testStatusCodesRetriedAccordingToIdempotency() {
+        BackoffRetryStrategy retryStrategy = new BackoffRetryStrategy(properties);
+
+        assertTrue(retryStrategy.retryRequest(new BasicHttpResponse(502), 1, context("GET")));
+        assertFalse(retryStrategy.retryRequest(new BasicHttpResponse(502), 1, context("POST")));
+        assertTrue(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("POST")));
+        assertFalse(retryStrategy.retryRequest(new BasicHttpResponse(500), 1, context("GET")));
+        assertFalse(retryStrategy.retryRequest(new BasicHttpResponse(503), 3, context("GET")));
+    }
+
+    @Test
+    void testExceptionsRetriedAccordingToIdempotency() {
+        BackoffRetryStrategy retryStrategy = new BackoffRetryStrategy(properties);
+
+        assertTrue(retryStrategy.retryRequest(new BasicHttpRequest("GET", "/"), new IOException(), 1,
+                context("GET")));
+        assertFalse(retryStrategy.retryRequest(new BasicHttpRequest("POST", "/"), new IOException(), 1,
+                context("POST")));
+        assertFalse(retryStrategy.retryRequest(new BasicHttpRequest("GET", "/"), new SocketTimeoutException(), 1,
+                context("GET")));
+    }
+
+    @Test
+    void testBackoffWithFullJitter() {
+        BackoffRetryStrategy retryStrategy = new BackoffRetryStrategy(properties);
+
+        for (int i = 0; i < 100; i++) {
+            long firstInterval = retryStrategy.getRetryInterval(new BasicHttpResponse(503), 1, context("GET"))
+                    .toMilliseconds();
+            long thirdInterval = retryStrategy.getRetryInterval(new BasicHttpResponse(503), 3, context("GET"))
+                    .toMilliseconds();
+            long cappedInterval = retryStrategy.getRetryInterval(new BasicHttpResponse(503), 10, context("GET"))
+                    .toMilliseconds();
+
+            assertTrue(firstInterval >= 0 && firstInterval <= 100);
+            assertTrue(thirdInterval >= 0 && thirdInterval <= 400);
+            assertTrue(cappedInterval >= 0 && cappedInterval <= 2000);
+        }
+
+        HttpResponse response = new BasicHttpResponse(503);
+        response.addHeader(HttpHeaders.RETRY_AFTER, "1");
+        assertEquals(1, retryStrategy.getRetryInterval(response, 1, context("GET")).toSeconds());
+    }
+
+    @Test
+    void testRetryAfterBoundedByMaxBackoffAndDeadline() {
+        BackoffRetryStrategy retryStrategy = new BackoffRetryStrategy(properties);
+
+        // The response is returned as is rather than waiting for an hour
+        HttpResponse response = new BasicHttpResponse(503);
+        response.addHeader(HttpHeaders.RETRY_AFTER, "3600");
+        assertFalse(retryStrategy.retryRequest(response, 1, context("GET")));
+        assertEquals(2000, retryStrategy.getRetryInterval(response, 1, context("GET")).toMilliseconds());
+
+        // Nor waiting past the request deadline
+        response = new BasicHttpResponse(503);
+        response.addHeader(HttpHeaders.RETRY_AFTER, "1");
+        HttpCoreContext context = context("GET");
+        context.getRequest().addHeader(RequestDeadline.REQUEST_DEADLINE_HEADER,
+                String.valueOf(System.currentTimeMillis() + 500));
+        assertFalse(retryStrategy.retryRequest(response, 1, context));
+        assertTrue(retryStrategy.retryRequest(response, 1, context("GET")));
+    }
+
+    @Test
+    void testRetriesCappedByBudget() {
+        properties.setBudgetRatio(0.0);
+        BackoffRetryStrategy retryStrategy = new BackoffRetryStrategy(properties);
+
+        // Only the initial budget of 10 retries is available when the ratio is zero
+        for (int i = 0; i < 10; i++) {
+            assertTrue(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("GET")));
+        }
+        assertFalse(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("GET")));
+    }
+
+    @Test
+    void testRetryBurstBoundedByMaxBudget() {
+        properties.setMaxBudget(3);
+        BackoffRetryStrategy retryStrategy = new BackoffRetryStrategy(properties);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("GET")));
+        }
+        assertFalse(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("GET")));
+
+        // Deposits do not raise the budget above the maximum
+        for (int i = 0; i < 100; i++) {
+            retryStrategy.retryRequest(new BasicHttpResponse(200), 1, context("GET"));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertTrue(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("GET")));
+        }
+        assertFalse(retryStrategy.retryRequest(new BasicHttpResponse(503), 1, context("GET")));
+    }
+
+    private static HttpCoreContext context(String method) {
+        HttpCoreContext context = HttpCoreContext.create();
+        context.setRequest(new BasicHttpRequest(method, "/"));
+        return context;
+    }
+}
@@ -0,0 +1,121 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CachingDnsResolverTest {
+
+    private static final String HOST = "api.example.com";
+
+    @Mock
+    private DnsResolver delegate;
+
+    private final CachingDnsResolver.Properties properties = new CachingDnsResolver.Properties();
+    private InetAddress[] addresses;
+
+    @BeforeEach
+    void setup() throws UnknownHostException {
+        addresses = new InetAddress[]{InetAddress.getByAddress(HOST, new byte[]{10, 0, 0, 1}),
+                InetAddress.getByAddress(HOST, new byte[]{10, 0, 0, 2}),
+                InetAddress.getByAddress(HOST, new byte[]{10, 0, 0, 3})};
+    }
+
+    @Test
+    void testAddressesAreCachedAndRotated() throws UnknownHostException {
+        when(delegate.resolve(HOST)).thenReturn(addresses);
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(properties, delegate, Runnable::run);
+
+        assertArrayEquals(addresses, dnsResolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[]{addresses[1], addresses[2], addresses[0]}, dnsResolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[]{addresses[2], addresses[0], addresses[1]}, dnsResolver.resolve(HOST));
+        assertArrayEquals(addresses, dnsResolver.resolve(HOST));
+        verify(delegate, times(1)).resolve(HOST);
+    }
+
+    @Test
+    void testFailuresAreCachedForNegativeTtl() throws UnknownHostException {
+        when(delegate.resolve(HOST)).thenThrow(new UnknownHostException(HOST));
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(properties, delegate, Runnable::run);
+
+        assertThrows(UnknownHostException.class, () -> dnsResolver.resolve(HOST));
+        assertThrows(UnknownHostException.class, () -> dnsResolver.resolve(HOST));
+        verify(delegate, times(1)).resolve(HOST);
+
+        properties.setNegativeTtl(0);
+        CachingDnsResolver uncachedDnsResolver = new CachingDnsResolver(properties, delegate, Runnable::run);
+        assertThrows(UnknownHostException.class, () -> uncachedDnsResolver.resolve(HOST));
+        assertThrows(UnknownHostException.class, () -> uncachedDnsResolver.resolve(HOST));
+        verify(delegate, times(3)).resolve(HOST);
+    }
+
+    @Test
+    void testEntriesAreRefreshedInBackground() throws UnknownHostException {
+        InetAddress[] refreshedAddresses = {addresses[2]};
+        when(delegate.resolve(HOST)).thenReturn(addresses, refreshedAddresses);
+        properties.setRefreshAfter(0);
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(properties, delegate, Runnable::run);
+
+        assertArrayEquals(addresses, dnsResolver.resolve(HOST));
+        // The refresh is triggered by this call, which is still served from the cached entry
+        assertArrayEquals(new InetAddress[]{addresses[1], addresses[2], addresses[0]}, dnsResolver.resolve(HOST));
+        assertArrayEquals(refreshedAddresses, dnsResolver.resolve(HOST));
+    }
+
+    @Test
+    void testFailedRefreshKeepsCachedAddresses() throws UnknownHostException {
+        when(delegate.resolve(HOST)).thenReturn(addresses).thenThrow(new UnknownHostException(HOST));
+        properties.setRefreshAfter(0);
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(properties, delegate, Runnable::run);
+
+        dnsResolver.resolve(HOST);
+        dnsResolver.resolve(HOST);
+        assertArrayEquals(new InetAddress[]{addresses[2], addresses[0], addresses[1]}, dnsResolver.resolve(HOST));
+    }
+
+    @Test
+    void testCachedAddressesAreServedAfterShutdown() throws UnknownHostException {
+        when(delegate.resolve(HOST)).thenReturn(addresses);
+        properties.setRefreshAfter(0);
+        ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(properties, delegate, refreshExecutor);
+
+        dnsResolver.resolve(HOST);
+        dnsResolver.shutdown();
+
+        assertTrue(refreshExecutor.isShutdown());
+        // The refresh cannot be scheduled anymore, the cached entry is served instead
+        assertArrayEquals(new InetAddress[]{addresses[1], addresses[2], addresses[0]}, dnsResolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[]{addresses[2], addresses[0], addresses[1]}, dnsResolver.resolve(HOST));
+        verify(delegate, times(1)).resolve(HOST);
+    }
+
+    @Test
+    void testDnsResolverIsCreatedWhenEnabled() {
+        CachingDnsResolver.Properties enabledProperties = new CachingDnsResolver.Properties();
+        enabledProperties.setEnabled(true);
+
+        assertSame(SystemDefaultDnsResolver.INSTANCE, ConnectionConfiguration.dnsResolver(properties));
+        DnsResolver dnsResolver = ConnectionConfiguration.dnsResolver(enabledProperties);
+        assertInstanceOf(CachingDnsResolver.class, dnsResolver);
+        ((CachingDnsResolver) dnsResolver).shutdown();
+    }
+}
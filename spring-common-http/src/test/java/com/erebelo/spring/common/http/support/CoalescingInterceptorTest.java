@@ -0,0 +1,116 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+class CoalescingInterceptorTest {
+
+    private final CoalescingInterceptor interceptor = new CoalescingInterceptor(
+            new CoalescingInterceptor.Properties());
+
+    @Test
+    void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            executions.incrementAndGet();
+            return new MockClientHttpResponse("reference-data".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+        };
+
+        List<FutureTask<String>> responses = this.sendWhileInFlight(List.of(MediaType.APPLICATION_JSON,
+                MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON,
+                MediaType.APPLICATION_JSON), execution);
+        for (FutureTask<String> response : responses) {
+            assertEquals("reference-data", response.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+
+        // Requests are not coalesced once the response has been received
+        assertEquals("reference-data", this.send(MediaType.APPLICATION_JSON, execution));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testRequestsWithDifferentVaryingHeadersAreNotCoalesced() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            executions.incrementAndGet();
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        };
+
+        List<FutureTask<String>> responses = this.sendWhileInFlight(List.of(MediaType.APPLICATION_JSON,
+                MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN), execution);
+        for (FutureTask<String> response : responses) {
+            response.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testFailureIsSharedWithCoalescedRequests() throws Exception {
+        ClientHttpRequestExecution execution = (request, body) -> {
+            throw new IOException("Connection reset");
+        };
+
+        for (FutureTask<String> response : this.sendWhileInFlight(List.of(MediaType.APPLICATION_JSON,
+                MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON), execution)) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> response.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, exception.getCause());
+        }
+    }
+
+    /**
+     * Sends one request per media type, each from its own thread. A request is
+     * only sent once the previous one is blocked, either executing or waiting for
+     * the in-flight request it is coalesced with. Executions are held until all
+     * the requests are sent, so that the requests accepting the same media type
+     * are coalesced.
+     */
+    private List<FutureTask<String>> sendWhileInFlight(List<MediaType> accepts,
+            ClientHttpRequestExecution execution) {
+        CountDownLatch released = new CountDownLatch(1);
+        ClientHttpRequestExecution heldExecution = (request, body) -> {
+            TestThreads.await(released);
+            return execution.execute(request, body);
+        };
+
+        List<FutureTask<String>> responses = new ArrayList<>();
+        for (MediaType accept : accepts) {
+            FutureTask<String> response = new FutureTask<>(() -> this.send(accept, heldExecution));
+            TestThreads.awaitBlocked(TestThreads.start(response));
+            responses.add(response);
+        }
+        released.countDown();
+        return responses;
+    }
+
+    private String send(MediaType accept, ClientHttpRequestExecution execution) throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET,
+                URI.create("http://localhost/reference"));
+        request.getHeaders().setAccept(List.of(accept));
+        try (ClientHttpResponse response = interceptor.intercept(request, new byte[0], execution)) {
+            return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+class CompressionConfigurationTest {
+
+    private final Map<String, String> receivedRequest = new ConcurrentHashMap<>();
+    private final CompressionConfiguration.Properties properties = new CompressionConfiguration.Properties();
+    private HttpServer httpServer;
+    private String url;
+
+    @BeforeEach
+    void setup() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            if ("gzip".equals(contentEncoding)) {
+                requestBody = new GZIPInputStream(new ByteArrayInputStream(requestBody)).readAllBytes();
+                receivedRequest.put("content-encoding", contentEncoding);
+            }
+            receivedRequest.put("body", new String(requestBody, StandardCharsets.UTF_8));
+            receivedRequest.put("accept-encoding",
+                    String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+
+            ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(responseBody)) {
+                gzipOutputStream.write("compressed-response".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, responseBody.size());
+            exchange.getResponseBody().write(responseBody.toByteArray());
+            exchange.close();
+        });
+        httpServer.start();
+        url = "http://localhost:" + httpServer.getAddress().getPort() + "/compression";
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    void testRequestCompressionAndResponseDecompression() {
+        properties.setRequestThreshold(16);
+        properties.setAcceptEncodings(List.of("gzip"));
+        RestTemplate restTemplate = this.restTemplate();
+
+        String largeBody = "a".repeat(1024);
+        assertEquals("compressed-response", restTemplate.postForObject(url, largeBody, String.class));
+        assertEquals("gzip", receivedRequest.get("content-encoding"));
+        assertEquals(largeBody, receivedRequest.get("body"));
+        assertEquals("gzip", receivedRequest.get("accept-encoding"));
+    }
+
+    @Test
+    void testSmallRequestBodyIsNotCompressed() {
+        RestTemplate restTemplate = this.restTemplate();
+
+        assertEquals("compressed-response", restTemplate.postForObject(url, "small", String.class));
+        assertNull(receivedRequest.get("content-encoding"));
+        assertEquals("small", receivedRequest.get("body"));
+        assertEquals("gzip, x-gzip, deflate", receivedRequest.get("accept-encoding"));
+    }
+
+    @Test
+    void testAcceptEncodingLimitedToConfiguredDecoders() {
+        properties.setAcceptEncodings(List.of("deflate"));
+
+        // Without the interceptor, the HttpClient advertises its default encodings, not the registered decoders
+        RestTemplate defaultRestTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients
+                .custom().setContentDecoderRegistry(CompressionConfiguration.contentDecoders(properties)).build()));
+        defaultRestTemplate.postForObject(url, "small", byte[].class);
+        assertTrue(receivedRequest.get("accept-encoding").startsWith("gzip, x-gzip, deflate"));
+
+        // A gzip response could not be decoded, so only the registered encodings must be advertised
+        this.restTemplate().postForObject(url, "small", byte[].class);
+        assertEquals("deflate", receivedRequest.get("accept-encoding"));
+
+        // An Accept-Encoding header set by the caller is kept
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "identity");
+        this.restTemplate().postForObject(url, new HttpEntity<>("small", headers), byte[].class);
+        assertEquals("identity", receivedRequest.get("accept-encoding"));
+    }
+
+    @Test
+    void testUnsupportedEncodingThrowsException() {
+        properties.setAcceptEncodings(List.of("br"));
+
+        assertThrows(IllegalStateException.class, () -> CompressionConfiguration.contentDecoders(properties));
+    }
+
+    private RestTemplate restTemplate() {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setContentDecoderRegistry(CompressionConfiguration.contentDecoders(properties))
+                .addExecInterceptorBefore(ChainElement.COMPRESS.name(), "accept-encoding",
+                        CompressionConfiguration.acceptEncodingInterceptor(properties))
+                .build()));
+        restTemplate.getInterceptors().add(CompressionConfiguration.requestCompressionInterceptor(properties));
+        return restTemplate;
+    }
+}
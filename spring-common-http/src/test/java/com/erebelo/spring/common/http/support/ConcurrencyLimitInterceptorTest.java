@@ -0,0 +1,103 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.erebelo.spring.common.http.ConcurrencyLimitExceededException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET,
+            URI.create("http://localhost/"));
+
+    @Test
+    void testFixedLimitRejectsRequestsAboveLimit() throws Exception {
+        ClientHttpResponse expectedResponse = response(HttpStatus.OK);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ClientHttpRequestExecution blockingExecution = (httpRequest, body) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return expectedResponse;
+        };
+
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor("serviceTwo",
+                properties(ConcurrencyLimitInterceptor.Mode.FIXED, 1));
+        CompletableFuture<ClientHttpResponse> inFlightRequest = CompletableFuture.supplyAsync(() -> {
+            try {
+                return interceptor.intercept(request, new byte[0], blockingExecution);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ConcurrencyLimitExceededException exception = assertThrows(ConcurrencyLimitExceededException.class,
+                () -> interceptor.intercept(request, new byte[0], (httpRequest, body) -> expectedResponse));
+        assertTrue(exception.getMessage().contains("serviceTwo"));
+
+        release.countDown();
+        assertSame(expectedResponse, inFlightRequest.get(5, TimeUnit.SECONDS));
+        assertSame(expectedResponse,
+                interceptor.intercept(request, new byte[0], (httpRequest, body) -> expectedResponse));
+        assertEquals(1, interceptor.getLimit());
+    }
+
+    @Test
+    void testAimdLimitAdaptsToResponses() throws IOException {
+        ClientHttpResponse okResponse = response(HttpStatus.OK);
+        ClientHttpResponse throttledResponse = response(HttpStatus.SERVICE_UNAVAILABLE);
+
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor("serviceTwo",
+                properties(ConcurrencyLimitInterceptor.Mode.AIMD, 2));
+
+        interceptor.intercept(request, new byte[0], (httpRequest, body) -> okResponse);
+        assertEquals(3, interceptor.getLimit());
+
+        // The limit only grows while at least half of it is in use
+        interceptor.intercept(request, new byte[0], (httpRequest, body) -> okResponse);
+        assertEquals(3, interceptor.getLimit());
+
+        interceptor.intercept(request, new byte[0], (httpRequest, body) -> throttledResponse);
+        assertEquals(2, interceptor.getLimit());
+
+        assertThrows(IOException.class, () -> interceptor.intercept(request, new byte[0], (httpRequest, body) -> {
+            throw new IOException("Connection reset");
+        }));
+        assertEquals(1, interceptor.getLimit());
+    }
+
+    private static ConcurrencyLimitInterceptor.Properties properties(ConcurrencyLimitInterceptor.Mode mode,
+            int limit) {
+        ConcurrencyLimitInterceptor.Properties properties = new ConcurrencyLimitInterceptor.Properties();
+        properties.setEnabled(true);
+        properties.setMode(mode);
+        properties.setLimit(limit);
+        return properties;
+    }
+
+    private static ClientHttpResponse response(HttpStatus status) throws IOException {
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        return response;
+    }
+}
@@ -0,0 +1,116 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+class ConnectionWarmerTest {
+
+    private final List<Socket> acceptedSockets = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ConnectionWarmer.Properties properties = new ConnectionWarmer.Properties();
+    private ServerSocket serverSocket;
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @BeforeEach
+    void setup() throws IOException {
+        serverSocket = new ServerSocket(0);
+        executor.execute(() -> {
+            try {
+                while (!serverSocket.isClosed()) {
+                    acceptedSockets.add(serverSocket.accept());
+                }
+            } catch (IOException e) {
+                // Server socket closed
+            }
+        });
+
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create().setMaxConnPerRoute(10).build();
+        properties.setEnabled(true);
+        properties.setConnections(3);
+        properties.setTimeout(2000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        serverSocket.close();
+        for (Socket socket : acceptedSockets) {
+            socket.close();
+        }
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+        connectionManager.close();
+    }
+
+    @Test
+    void testWarmUpEstablishesDistinctPooledConnections() {
+        properties.setUrl("http://localhost:" + serverSocket.getLocalPort() + "/health");
+
+        new ConnectionWarmer("serviceOne", properties, connectionManager, null).warmUp(executor).join();
+
+        assertEquals(3, acceptedSockets.size());
+        assertEquals(3, connectionManager.getTotalStats().getAvailable());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    void testWarmUpFailureDoesNotFail() throws IOException {
+        properties.setUrl("http://localhost:" + serverSocket.getLocalPort() + "/health");
+        serverSocket.close();
+
+        assertDoesNotThrow(() -> new ConnectionWarmer("serviceOne", properties, connectionManager, null)
+                .warmUp(executor).join());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    void testWarmUpSendsRequestsThroughRequestFactory() throws IOException {
+        List<String> receivedMethods = new CopyOnWriteArrayList<>();
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/health", exchange -> {
+            receivedMethods.add(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.start();
+
+        try {
+            properties.setUrl("http://localhost:" + httpServer.getAddress().getPort() + "/health");
+            properties.setConnections(1);
+            HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                    HttpClients.custom().setConnectionManager(connectionManager).build());
+
+            new ConnectionWarmer("serviceOne", properties, requestFactory).warmUp(executor).join();
+
+            assertEquals(List.of("HEAD"), receivedMethods);
+            assertEquals(1, connectionManager.getTotalStats().getAvailable());
+        } finally {
+            httpServer.stop(0);
+        }
+    }
+
+    @Test
+    void testWarmUpWithoutUrlThrowsException() {
+        ConnectionWarmer connectionWarmer = new ConnectionWarmer("serviceOne", properties, connectionManager, null);
+
+        assertThrows(IllegalStateException.class, () -> connectionWarmer.warmUp(executor));
+    }
+}
@@ -0,0 +1,105 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.erebelo.spring.common.http.DeadlineExceededException;
+import com.erebelo.spring.common.utils.http.RequestDeadline;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+class DeadlineConfigurationTest {
+
+    private final AtomicInteger receivedRequests = new AtomicInteger();
+    private HttpServer httpServer;
+    private RestTemplate restTemplate;
+    private String url;
+
+    @BeforeEach
+    void setup() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            receivedRequests.incrementAndGet();
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        httpServer.start();
+        url = "http://localhost:" + httpServer.getAddress().getPort() + "/slow";
+
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofSeconds(5)).build())
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "deadline",
+                        DeadlineConfiguration.execInterceptor())
+                .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    void testResponseTimeoutIsShortenedToDeadline() {
+        HttpHeaders headers = deadlineHeaders(System.currentTimeMillis() + 300);
+
+        long startTime = System.nanoTime();
+        ResourceAccessException exception = assertThrows(ResourceAccessException.class,
+                () -> restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Void.class));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertInstanceOf(SocketTimeoutException.class, exception.getCause());
+        assertTrue(elapsed < 1500, "Expected the deadline to apply, elapsed " + elapsed + " ms");
+    }
+
+    @Test
+    void testExpiredDeadlineIsNotSent() {
+        HttpHeaders headers = deadlineHeaders(System.currentTimeMillis() - 1);
+
+        ResourceAccessException exception = assertThrows(ResourceAccessException.class,
+                () -> restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Void.class));
+
+        assertInstanceOf(InterruptedIOException.class, exception.getCause());
+        assertEquals(0, receivedRequests.get());
+    }
+
+    @Test
+    void testCheckDeadline() {
+        assertDoesNotThrow(() -> DeadlineConfiguration.checkDeadline(new HttpHeaders()));
+        assertDoesNotThrow(
+                () -> DeadlineConfiguration.checkDeadline(deadlineHeaders(System.currentTimeMillis() + 1000)));
+        assertThrows(DeadlineExceededException.class,
+                () -> DeadlineConfiguration.checkDeadline(deadlineHeaders(System.currentTimeMillis() - 1)));
+    }
+
+    private static HttpHeaders deadlineHeaders(long deadline) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(RequestDeadline.REQUEST_DEADLINE_HEADER, String.valueOf(deadline));
+        return headers;
+    }
+}
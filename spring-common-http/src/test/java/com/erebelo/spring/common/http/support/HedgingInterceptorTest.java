@@ -0,0 +1,310 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+class HedgingInterceptorTest {
+
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final List<Runnable> hedgeTriggers = new CopyOnWriteArrayList<>();
+    private final List<Long> hedgingDelays = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Hedges are triggered by the tests instead of after the hedging delay
+        doAnswer(invocation -> {
+            hedgeTriggers.add(invocation.getArgument(0));
+            hedgingDelays.add(invocation.getArgument(1));
+            return mock(ScheduledFuture.class);
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void testPrimaryAttemptRunsOnCallingThread() throws IOException {
+        ClientHttpResponse expectedResponse = mock(ClientHttpResponse.class);
+        AtomicReference<Thread> attemptThread = new AtomicReference<>();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            attemptThread.set(Thread.currentThread());
+            return expectedResponse;
+        };
+
+        ClientHttpResponse response = new HedgingInterceptor(properties(0.1), DIRECT_EXECUTOR, scheduler)
+                .intercept(getRequest(), new byte[0], execution);
+
+        assertSame(expectedResponse, response);
+        assertSame(Thread.currentThread(), attemptThread.get());
+    }
+
+    @Test
+    void testSlowRequestIsHedgedAndPrimaryAborted() throws Exception {
+        ExecutorService hedgingExecutor = Executors.newSingleThreadExecutor();
+        ScheduledExecutorService hedgingScheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ClientHttpResponse fastResponse = mock(ClientHttpResponse.class);
+            CountDownLatch primaryAborted = new CountDownLatch(1);
+            AtomicInteger attempts = new AtomicInteger();
+            ClientHttpRequestExecution execution = (request, body) -> {
+                if (attempts.incrementAndGet() > 1) {
+                    return fastResponse;
+                }
+                // Blocks like a socket read until the request is aborted
+                RequestAttempt.register(() -> {
+                    primaryAborted.countDown();
+                    return true;
+                });
+                try {
+                    if (!primaryAborted.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Primary attempt was not aborted");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Request aborted");
+            };
+
+            ClientHttpResponse response = new HedgingInterceptor(properties(0.1), hedgingExecutor,
+                    hedgingScheduler).intercept(getRequest(), new byte[0], execution);
+
+            assertSame(fastResponse, response);
+            assertEquals(2, attempts.get());
+            assertEquals(0, primaryAborted.getCount());
+        } finally {
+            hedgingExecutor.shutdownNow();
+            hedgingScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLateResponseIsClosed() throws IOException {
+        ClientHttpResponse primaryResponse = mock(ClientHttpResponse.class);
+        ClientHttpResponse hedgedResponse = mock(ClientHttpResponse.class);
+        AtomicInteger attempts = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            if (attempts.incrementAndGet() > 1) {
+                return hedgedResponse;
+            }
+            this.triggerHedge();
+            return primaryResponse;
+        };
+
+        ClientHttpResponse response = new HedgingInterceptor(properties(0.1), DIRECT_EXECUTOR, scheduler)
+                .intercept(getRequest(), new byte[0], execution);
+
+        assertSame(hedgedResponse, response);
+        verify(primaryResponse).close();
+    }
+
+    @Test
+    void testHedgedRequestGoesToAnotherEndpoint() throws IOException {
+        LoadBalancingInterceptor.Properties loadBalancingProperties = new LoadBalancingInterceptor.Properties();
+        loadBalancingProperties.setEndpoints(List.of("http://replica-1:8080", "http://replica-2:8080"));
+        LoadBalancingInterceptor loadBalancingInterceptor = new LoadBalancingInterceptor("service",
+                loadBalancingProperties);
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties(0.1), DIRECT_EXECUTOR, scheduler);
+
+        List<String> hosts = new CopyOnWriteArrayList<>();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            hosts.add(request.getURI().getHost());
+            if (hosts.size() == 1) {
+                this.triggerHedge();
+            }
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        };
+
+        loadBalancingInterceptor.intercept(getRequest(), new byte[0],
+                (request, body) -> hedgingInterceptor.intercept(request, body, execution));
+
+        assertEquals(2, hosts.size());
+        assertNotEquals(hosts.get(0), hosts.get(1));
+    }
+
+    @Test
+    void testRejectedHedgeKeepsPrimaryFailure() {
+        IOException primaryFailure = new IOException("Connection refused");
+        ClientHttpRequestExecution execution = (request, body) -> {
+            this.triggerHedge();
+            throw primaryFailure;
+        };
+        Executor rejectingExecutor = command -> {
+            throw new RejectedExecutionException();
+        };
+
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties(0.1), rejectingExecutor,
+                scheduler);
+        IOException exception = assertThrows(IOException.class,
+                () -> hedgingInterceptor.intercept(getRequest(), new byte[0], execution));
+
+        assertSame(primaryFailure, exception);
+    }
+
+    @Test
+    void testUnsafeRequestIsNotHedged() throws IOException {
+        ClientHttpResponse expectedResponse = mock(ClientHttpResponse.class);
+        AtomicInteger attempts = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            attempts.incrementAndGet();
+            return expectedResponse;
+        };
+
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties(0.1), DIRECT_EXECUTOR, scheduler);
+        ClientHttpResponse response = hedgingInterceptor
+                .intercept(new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/")), new byte[0],
+                        execution);
+
+        assertSame(expectedResponse, response);
+        assertEquals(1, attempts.get());
+        assertTrue(hedgeTriggers.isEmpty());
+    }
+
+    @Test
+    void testHedgesAreCappedByBudget() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            if (attempts.incrementAndGet() % 2 == 1) {
+                this.triggerHedge();
+            }
+            return mock(ClientHttpResponse.class);
+        };
+
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties(0.0), DIRECT_EXECUTOR, scheduler);
+        int hedgedRequests = 0;
+        for (int i = 0; i < 15; i++) {
+            attempts.set(0);
+            hedgingInterceptor.intercept(getRequest(), new byte[0], execution);
+            hedgedRequests += attempts.get() - 1;
+        }
+
+        // Only the initial budget of 10 hedges is available when the ratio is zero
+        assertEquals(10, hedgedRequests);
+    }
+
+    @Test
+    void testHedgeBurstBoundedByMaxBudget() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            if (attempts.incrementAndGet() % 2 == 1) {
+                this.triggerHedge();
+            }
+            return mock(ClientHttpResponse.class);
+        };
+        HedgingInterceptor.Properties properties = properties(0.0);
+        properties.setMaxBudget(2);
+
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties, DIRECT_EXECUTOR, scheduler);
+        int hedgedRequests = 0;
+        for (int i = 0; i < 5; i++) {
+            attempts.set(0);
+            hedgingInterceptor.intercept(getRequest(), new byte[0], execution);
+            hedgedRequests += attempts.get() - 1;
+        }
+
+        assertEquals(2, hedgedRequests);
+    }
+
+    @Test
+    void testSkippedHedgeGivesBudgetBack() throws IOException {
+        List<Runnable> queuedHedges = new CopyOnWriteArrayList<>();
+        AtomicInteger submittedHedges = new AtomicInteger();
+        Executor hedgingExecutor = command -> {
+            if (submittedHedges.incrementAndGet() == 1) {
+                throw new RejectedExecutionException();
+            }
+            queuedHedges.add(command);
+        };
+        ClientHttpRequestExecution execution = (request, body) -> {
+            this.triggerHedge();
+            return mock(ClientHttpResponse.class);
+        };
+        HedgingInterceptor.Properties properties = properties(0.0);
+        properties.setMaxBudget(1);
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties, hedgingExecutor, scheduler);
+
+        // The token of the hedge rejected by the executor is given back
+        hedgingInterceptor.intercept(getRequest(), new byte[0], execution);
+        hedgingInterceptor.intercept(getRequest(), new byte[0], execution);
+        assertEquals(2, submittedHedges.get());
+
+        // So is the token of the hedge that runs once the request already completed
+        queuedHedges.forEach(Runnable::run);
+        hedgingInterceptor.intercept(getRequest(), new byte[0], execution);
+        assertEquals(3, submittedHedges.get());
+    }
+
+    @Test
+    void testHedgedLatencyMeasuredFromRequestStart() throws IOException {
+        long primaryDelay = TimeUnit.MILLISECONDS.toNanos(5);
+        AtomicInteger attempts = new AtomicInteger();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            if (attempts.incrementAndGet() % 2 == 1) {
+                long start = System.nanoTime();
+                while (System.nanoTime() - start < primaryDelay) {
+                    LockSupport.parkNanos(primaryDelay);
+                }
+                this.triggerHedge();
+            }
+            return mock(ClientHttpResponse.class);
+        };
+        HedgingInterceptor.Properties properties = properties(1.0);
+        properties.setDelayPercentile(0.01);
+        HedgingInterceptor hedgingInterceptor = new HedgingInterceptor(properties, DIRECT_EXECUTOR, scheduler);
+
+        // Every request records the latency of its primary and hedged attempts
+        for (int i = 0; i <= 128; i++) {
+            hedgingInterceptor.intercept(getRequest(), new byte[0], execution);
+        }
+
+        // The hedged attempts answering right away took as long as the primary ones for the callers
+        assertEquals(20L, hedgingDelays.get(0));
+        assertTrue(hedgingDelays.get(128) >= 5, "Hedging delay " + hedgingDelays.get(128));
+    }
+
+    private void triggerHedge() {
+        hedgeTriggers.get(hedgeTriggers.size() - 1).run();
+    }
+
+    private static MockClientHttpRequest getRequest() {
+        return new MockClientHttpRequest(HttpMethod.GET, URI.create("http://localhost/resources"));
+    }
+
+    private static HedgingInterceptor.Properties properties(double maxRatio) {
+        HedgingInterceptor.Properties properties = new HedgingInterceptor.Properties();
+        properties.setEnabled(true);
+        properties.setDelay(20L);
+        properties.setMaxRatio(maxRatio);
+        return properties;
+    }
+}
@@ -0,0 +1,76 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+class LazyClientHttpRequestFactoryTest {
+
+    private static final URI REQUEST_URI = URI.create("http://localhost/");
+
+    @Test
+    void testRequestFactoryIsCreatedOnceOnFirstRequest() throws Exception {
+        ClientHttpRequest expectedRequest = mock(ClientHttpRequest.class);
+        ClientHttpRequestFactory delegate = mock(ClientHttpRequestFactory.class);
+        when(delegate.createRequest(any(), any())).thenReturn(expectedRequest);
+        AtomicInteger creations = new AtomicInteger();
+        CountDownLatch creationReleased = new CountDownLatch(1);
+        LazyClientHttpRequestFactory lazyRequestFactory = new LazyClientHttpRequestFactory(() -> {
+            creations.incrementAndGet();
+            TestThreads.await(creationReleased);
+            return delegate;
+        });
+        assertFalse(lazyRequestFactory.isInitialized());
+
+        // All the requests are waiting for the request factory, or creating it, before it is created
+        List<FutureTask<ClientHttpRequest>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            FutureTask<ClientHttpRequest> request = new FutureTask<>(
+                    () -> lazyRequestFactory.createRequest(REQUEST_URI, HttpMethod.GET));
+            TestThreads.awaitBlocked(TestThreads.start(request));
+            requests.add(request);
+        }
+        creationReleased.countDown();
+
+        for (FutureTask<ClientHttpRequest> request : requests) {
+            assertSame(expectedRequest, request.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, creations.get());
+        assertTrue(lazyRequestFactory.isInitialized());
+    }
+
+    @Test
+    void testFailedCreationIsRetried() throws Exception {
+        ClientHttpRequestFactory delegate = mock(ClientHttpRequestFactory.class);
+        AtomicInteger creations = new AtomicInteger();
+        LazyClientHttpRequestFactory lazyRequestFactory = new LazyClientHttpRequestFactory(() -> {
+            if (creations.incrementAndGet() == 1) {
+                throw new IllegalStateException("Failed to configure SSLContext");
+            }
+            return delegate;
+        });
+
+        assertThrows(IllegalStateException.class, () -> lazyRequestFactory.createRequest(REQUEST_URI, HttpMethod.GET));
+        assertFalse(lazyRequestFactory.isInitialized());
+
+        assertSame(delegate, lazyRequestFactory.getRequestFactory());
+        assertEquals(2, creations.get());
+    }
+}
@@ -0,0 +1,158 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+
+class LoadBalancingInterceptorTest {
+
+    private static final URI REQUEST_URI = URI.create("http://service/users?id=1");
+
+    @Test
+    void testRoundRobinRewritesRequestUri() throws IOException {
+        List<URI> uris = new ArrayList<>();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            uris.add(request.getURI());
+            return response(HttpStatus.OK);
+        };
+
+        LoadBalancingInterceptor loadBalancingInterceptor = new LoadBalancingInterceptor("service",
+                properties(LoadBalancingInterceptor.Strategy.ROUND_ROBIN, "http://host-a:8080",
+                        "https://host-b/api/"));
+        for (int i = 0; i < 3; i++) {
+            loadBalancingInterceptor.intercept(request(), new byte[0], execution);
+        }
+
+        assertEquals(List.of(URI.create("http://host-a:8080/users?id=1"), URI.create("https://host-b/api/users?id=1"),
+                URI.create("http://host-a:8080/users?id=1")), uris);
+    }
+
+    @Test
+    void testLeastOutstandingAvoidsBusyEndpoint() throws Exception {
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        List<String> hosts = Collections.synchronizedList(new ArrayList<>());
+        ClientHttpRequestExecution execution = (request, body) -> {
+            hosts.add(request.getURI().getHost());
+            if ("host-a".equals(request.getURI().getHost())) {
+                startedLatch.countDown();
+                TestThreads.await(releaseLatch);
+            }
+            return response(HttpStatus.OK);
+        };
+
+        LoadBalancingInterceptor loadBalancingInterceptor = new LoadBalancingInterceptor("service",
+                properties(LoadBalancingInterceptor.Strategy.LEAST_OUTSTANDING, "http://host-a", "http://host-b"));
+        CompletableFuture<ClientHttpResponse> busyRequest = CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadBalancingInterceptor.intercept(request(), new byte[0], execution);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(TestThreads.await(startedLatch));
+
+        loadBalancingInterceptor.intercept(request(), new byte[0], execution);
+        loadBalancingInterceptor.intercept(request(), new byte[0], execution);
+        releaseLatch.countDown();
+        busyRequest.get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("host-a", "host-b", "host-b"), hosts);
+    }
+
+    @Test
+    void testFailingEndpointIsEjected() throws IOException {
+        List<String> hosts = new ArrayList<>();
+        ClientHttpRequestExecution execution = (request, body) -> {
+            hosts.add(request.getURI().getHost());
+            if ("host-a".equals(request.getURI().getHost())) {
+                throw new IOException("Connection refused");
+            }
+            return response(HttpStatus.OK);
+        };
+
+        LoadBalancingInterceptor.Properties properties = properties(LoadBalancingInterceptor.Strategy.ROUND_ROBIN,
+                "http://host-a", "http://host-b");
+        properties.setFailureThreshold(2);
+        LoadBalancingInterceptor loadBalancingInterceptor = new LoadBalancingInterceptor("service", properties);
+        for (int i = 0; i < 6; i++) {
+            try {
+                loadBalancingInterceptor.intercept(request(), new byte[0], execution);
+            } catch (IOException e) {
+                // Expected for host-a until it is ejected
+            }
+        }
+
+        assertEquals(List.of("host-a", "host-b", "host-a", "host-b", "host-b", "host-b"), hosts);
+    }
+
+    @Test
+    void testPowerOfTwoChoicesPrefersFasterEndpoint() throws IOException {
+        List<String> hosts = new ArrayList<>();
+        ClientHttpResponse response = response(HttpStatus.OK);
+        ClientHttpRequestExecution execution = (request, body) -> {
+            hosts.add(request.getURI().getHost());
+            if ("host-a".equals(request.getURI().getHost())) {
+                // Latency of the slow endpoint, the other endpoint responds right away
+                long responseTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+                while (System.nanoTime() - responseTime < 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            return response;
+        };
+
+        LoadBalancingInterceptor loadBalancingInterceptor = new LoadBalancingInterceptor("service",
+                properties(LoadBalancingInterceptor.Strategy.POWER_OF_TWO_EWMA, "http://host-a", "http://host-b"));
+        for (int i = 0; i < 10; i++) {
+            loadBalancingInterceptor.intercept(request(), new byte[0], execution);
+        }
+
+        // Each endpoint is tried once before its latency is known
+        assertEquals(1, Collections.frequency(hosts, "host-a"));
+        assertEquals(9, Collections.frequency(hosts, "host-b"));
+    }
+
+    @Test
+    void testRelativeEndpointIsRejected() {
+        LoadBalancingInterceptor.Properties properties = properties(LoadBalancingInterceptor.Strategy.ROUND_ROBIN,
+                "/api");
+
+        assertThrows(IllegalStateException.class, () -> new LoadBalancingInterceptor("service", properties));
+    }
+
+    private static LoadBalancingInterceptor.Properties properties(LoadBalancingInterceptor.Strategy strategy,
+            String... endpoints) {
+        LoadBalancingInterceptor.Properties properties = new LoadBalancingInterceptor.Properties();
+        properties.setStrategy(strategy);
+        properties.setEndpoints(List.of(endpoints));
+        return properties;
+    }
+
+    private static MockClientHttpRequest request() {
+        return new MockClientHttpRequest(HttpMethod.GET, REQUEST_URI);
+    }
+
+    private static ClientHttpResponse response(HttpStatus status) throws IOException {
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        return response;
+    }
+}
@@ -0,0 +1,236 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.erebelo.spring.common.http.RateLimitExceededException;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecRuntime;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+class RateLimitInterceptorTest {
+
+    private final HttpGet request = new HttpGet("http://localhost/");
+    private final ClassicHttpResponse expectedResponse = mock(ClassicHttpResponse.class);
+    private final ExecChain chain = (httpRequest, scope) -> expectedResponse;
+    private final AtomicInteger receivedRequests = new AtomicInteger();
+    private HttpServer httpServer;
+    private String url;
+
+    @BeforeEach
+    void setup() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            receivedRequests.incrementAndGet();
+            byte[] body = "Service unavailable".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(503, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        httpServer.start();
+        url = "http://localhost:" + httpServer.getAddress().getPort() + "/unavailable";
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    void testRejectModeAllowsBurstThenRejects() throws Exception {
+        RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor("service",
+                properties(1.0, 3, RateLimitInterceptor.Mode.REJECT));
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(expectedResponse, rateLimitInterceptor.execute(request, null, chain));
+        }
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> rateLimitInterceptor.execute(request, null, chain));
+        assertEquals("Rate limit of 1.0 requests per second exceeded for service 'service'", exception.getMessage());
+    }
+
+    @Test
+    void testBlockModePacesRequests() throws Exception {
+        RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor("service",
+                properties(50.0, 1, RateLimitInterceptor.Mode.BLOCK));
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            rateLimitInterceptor.execute(request, null, chain);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        // The first request is sent right away and each of the others waits 20 ms
+        assertTrue(elapsed >= 95, "Expected requests to be paced, elapsed " + elapsed + " ms");
+    }
+
+    @Test
+    void testBlockModeRejectsRequestsAboveMaxWait() throws Exception {
+        RateLimitInterceptor.Properties properties = properties(10.0, 1, RateLimitInterceptor.Mode.BLOCK);
+        properties.setMaxWait(50L);
+        RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor("service", properties);
+
+        rateLimitInterceptor.execute(request, null, chain);
+
+        // The next permit is 100 ms away, above the maximum wait
+        long startTime = System.nanoTime();
+        assertThrows(RateLimitExceededException.class, () -> rateLimitInterceptor.execute(request, null, chain));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 50);
+    }
+
+    @Test
+    void testConcurrentRequestsDoNotExceedBurst() throws Exception {
+        RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor("service",
+                properties(0.5, 5, RateLimitInterceptor.Mode.REJECT));
+        AtomicInteger sent = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                tasks.add(() -> {
+                    try {
+                        rateLimitInterceptor.execute(request, null, (httpRequest, scope) -> {
+                            sent.incrementAndGet();
+                            return expectedResponse;
+                        });
+                        return true;
+                    } catch (RateLimitExceededException e) {
+                        return false;
+                    }
+                });
+            }
+            for (Future<Boolean> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(5, sent.get());
+    }
+
+    @Test
+    void testAsyncRequestWaitingForPermitIsScheduled() throws Exception {
+        RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor("service",
+                properties(10.0, 1, RateLimitInterceptor.Mode.BLOCK));
+        AsyncExecChain.Scheduler scheduler = mock(AsyncExecChain.Scheduler.class);
+        BasicHttpRequest asyncRequest = new BasicHttpRequest("GET", "/");
+        AsyncExecChain.Scope scope = new AsyncExecChain.Scope("exchange",
+                new HttpRoute(new HttpHost("http", "localhost", 80)), asyncRequest, mock(CancellableDependency.class),
+                HttpClientContext.create(), mock(AsyncExecRuntime.class), scheduler, new AtomicInteger(1));
+        AsyncExecChain asyncChain = mock(AsyncExecChain.class);
+        AsyncExecCallback asyncExecCallback = mock(AsyncExecCallback.class);
+
+        rateLimitInterceptor.execute(asyncRequest, null, scope, asyncChain, asyncExecCallback);
+        verify(asyncChain).proceed(asyncRequest, null, scope, asyncExecCallback);
+
+        // The next permit is 100 ms away, the chain is resumed by the scheduler
+        rateLimitInterceptor.execute(asyncRequest, null, scope, asyncChain, asyncExecCallback);
+        verify(scheduler).scheduleExecution(eq(asyncRequest), eq(null), eq(scope), eq(asyncChain),
+                eq(asyncExecCallback), any(TimeValue.class));
+        verify(asyncChain).proceed(asyncRequest, null, scope, asyncExecCallback);
+        verify(asyncExecCallback, never()).failed(any());
+    }
+
+    @Test
+    void testRetriesTakePermits() {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setRetryStrategy(new BackoffRetryStrategy(retryProperties()))
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "rate-limit",
+                        new RateLimitInterceptor("service", properties(0.1, 2, RateLimitInterceptor.Mode.REJECT)))
+                .build()));
+
+        // The retry of the first attempt takes the second permit, the next retry is rejected
+        assertThrows(RateLimitExceededException.class, () -> restTemplate.getForEntity(url, Void.class));
+        assertEquals(2, receivedRequests.get());
+    }
+
+    @Test
+    void testAsyncRetriesTakePermits() {
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setRetryStrategy(new BackoffRetryStrategy(retryProperties()))
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "rate-limit",
+                        new RateLimitInterceptor("service", properties(20.0, 1, RateLimitInterceptor.Mode.BLOCK)))
+                .build();
+        httpAsyncClient.start();
+
+        try {
+            RestTemplate restTemplate = new RestTemplate(new HttpAsyncClientRequestFactory(httpAsyncClient));
+
+            long startTime = System.nanoTime();
+            assertThrows(HttpServerErrorException.class, () -> restTemplate.getForEntity(url, Void.class));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            // Each of the two retries waits 50 ms for its permit
+            assertEquals(3, receivedRequests.get());
+            assertTrue(elapsed >= 95, "Expected retries to be paced, elapsed " + elapsed + " ms");
+        } finally {
+            httpAsyncClient.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    @Test
+    void testInvalidPropertiesAreRejected() {
+        RateLimitInterceptor.Properties properties = properties(0.0, 1, RateLimitInterceptor.Mode.REJECT);
+
+        assertThrows(IllegalStateException.class, () -> new RateLimitInterceptor("service", properties));
+    }
+
+    private static BackoffRetryStrategy.Properties retryProperties() {
+        BackoffRetryStrategy.Properties properties = new BackoffRetryStrategy.Properties();
+        properties.setEnabled(true);
+        properties.setInitialBackoff(1L);
+        return properties;
+    }
+
+    private static RateLimitInterceptor.Properties properties(double permitsPerSecond, int burst,
+            RateLimitInterceptor.Mode mode) {
+        RateLimitInterceptor.Properties properties = new RateLimitInterceptor.Properties();
+        properties.setEnabled(true);
+        properties.setPermitsPerSecond(permitsPerSecond);
+        properties.setBurst(burst);
+        properties.setMode(mode);
+        return properties;
+    }
+}
@@ -0,0 +1,102 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecRuntime;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.junit.jupiter.api.Test;
+
+class StreamLimitInterceptorTest {
+
+    private final HttpRequest request = new BasicHttpRequest("GET", "/");
+    private final List<AsyncExecCallback> sentRequests = new ArrayList<>();
+    private final AsyncExecChain chain = (httpRequest, entityProducer, scope, asyncExecCallback) -> sentRequests
+            .add(asyncExecCallback);
+
+    @Test
+    void testRequestsBeyondLimitWaitForStream() {
+        StreamLimitInterceptor streamLimitInterceptor = new StreamLimitInterceptor(2);
+        AsyncExecCallback firstCallback = mock(AsyncExecCallback.class);
+        AsyncExecCallback thirdCallback = mock(AsyncExecCallback.class);
+
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, firstCallback);
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, mock(AsyncExecCallback.class));
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, thirdCallback);
+        assertEquals(2, sentRequests.size());
+
+        // Each route has its own streams
+        streamLimitInterceptor.execute(request, null, scope("host-b"), chain, mock(AsyncExecCallback.class));
+        assertEquals(3, sentRequests.size());
+
+        // The stream of a completed request is handed over to the waiting one
+        sentRequests.get(0).completed();
+        verify(firstCallback).completed();
+        assertEquals(4, sentRequests.size());
+
+        sentRequests.get(3).completed();
+        verify(thirdCallback).completed();
+    }
+
+    @Test
+    void testFailedRequestsReleaseTheirStream() {
+        StreamLimitInterceptor streamLimitInterceptor = new StreamLimitInterceptor(1);
+        AsyncExecCallback firstCallback = mock(AsyncExecCallback.class);
+        IOException failure = new IOException("Connection reset");
+
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, firstCallback);
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, mock(AsyncExecCallback.class));
+        assertEquals(1, sentRequests.size());
+
+        sentRequests.get(0).failed(failure);
+        verify(firstCallback).failed(failure);
+        assertEquals(2, sentRequests.size());
+
+        // A stream is released once, even if the exchange reports several outcomes
+        sentRequests.get(0).completed();
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, mock(AsyncExecCallback.class));
+        assertEquals(2, sentRequests.size());
+    }
+
+    @Test
+    void testRequestsFailingToBeSentReleaseTheirStream() {
+        StreamLimitInterceptor streamLimitInterceptor = new StreamLimitInterceptor(1);
+        IOException failure = new IOException("Connection refused");
+        AsyncExecCallback failedCallback = mock(AsyncExecCallback.class);
+        AsyncExecChain failingChain = (httpRequest, entityProducer, scope, asyncExecCallback) -> {
+            throw failure;
+        };
+
+        streamLimitInterceptor.execute(request, null, scope("host-a"), failingChain, failedCallback);
+        verify(failedCallback).failed(failure);
+
+        AsyncExecCallback nextCallback = mock(AsyncExecCallback.class);
+        streamLimitInterceptor.execute(request, null, scope("host-a"), chain, nextCallback);
+        assertEquals(1, sentRequests.size());
+        verify(nextCallback, never()).failed(any());
+    }
+
+    @Test
+    void testInvalidLimitThrowsException() {
+        assertThrows(IllegalStateException.class, () -> new StreamLimitInterceptor(0));
+    }
+
+    private AsyncExecChain.Scope scope(String host) {
+        return new AsyncExecChain.Scope("exchange", new HttpRoute(new HttpHost(host, 80)), request,
+                mock(CancellableDependency.class), HttpClientContext.create(), mock(AsyncExecRuntime.class));
+    }
+}
@@ -0,0 +1,61 @@
+package com.erebelo.spring.common.http.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers for tests coordinating threads with latches and thread states rather
+ * than sleeps.
+ */
+final class TestThreads {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private TestThreads() {
+    }
+
+    /**
+     * Starts a daemon thread running the given task.
+     */
+    static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Waits until the given thread is blocked on a lock, a latch or a future, so
+     * that the test knows it reached that point before going on.
+     *
+     * @throws AssertionError
+     *             if the thread is not blocked within the timeout
+     */
+    static void awaitBlocked(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!isBlocked(thread.getState())) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError(thread.getName() + " not blocked, state " + thread.getState());
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Waits for the latch to be released, up to the timeout.
+     *
+     * @return true if the latch was released
+     */
+    static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isBlocked(Thread.State state) {
+        return state == Thread.State.BLOCKED || state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+    }
+}
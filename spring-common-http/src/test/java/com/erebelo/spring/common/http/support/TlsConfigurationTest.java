@@ -0,0 +1,58 @@
+package com.erebelo.spring.common.http.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TlsConfigurationTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testSessionCacheIsConfigured() {
+        TlsConfiguration.Properties properties = new TlsConfiguration.Properties();
+        properties.setSessionCacheSize(500);
+        properties.setSessionTimeout(3600000L);
+
+        SSLSessionContext sessionContext = TlsConfiguration.sslContext(properties).getClientSessionContext();
+        assertEquals(500, sessionContext.getSessionCacheSize());
+        assertEquals(3600, sessionContext.getSessionTimeout());
+    }
+
+    @Test
+    void testTrustStoreIsLoaded() throws Exception {
+        Path trustStore = tempDir.resolve("truststore.p12");
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        try (OutputStream outputStream = Files.newOutputStream(trustStore)) {
+            keyStore.store(outputStream, "changeit".toCharArray());
+        }
+
+        TlsConfiguration.Properties properties = new TlsConfiguration.Properties();
+        properties.setTrustAll(false);
+        properties.setTrustStore(trustStore.toUri().toString());
+        properties.setTrustStorePassword("changeit");
+
+        SSLContext sslContext = TlsConfiguration.sslContext(properties);
+        assertNotNull(sslContext);
+    }
+
+    @Test
+    void testMissingTrustStoreThrowsException() {
+        TlsConfiguration.Properties properties = new TlsConfiguration.Properties();
+        properties.setTrustAll(false);
+        properties.setTrustStore(tempDir.resolve("missing.p12").toUri().toString());
+
+        assertThrows(IllegalStateException.class, () -> TlsConfiguration.sslContext(properties));
+    }
+}
@@ -0,0 +1,50 @@
+package com.erebelo.spring.common.loadtest;
+
+import java.util.Random;
+import lombok.Data;
+
+/**
+ * A data class that holds the latency distribution of the stub server, along
+ * with the sampling of its values. FIXED always returns the median, UNIFORM
+ * draws between the minimum and the maximum, and LOG_NORMAL draws from a
+ * long-tailed distribution matching the median and the 99th percentile, capped
+ * at the maximum. All durations are expressed in milliseconds.
+ */
+@Data
+public class LatencyDistribution {
+
+    // 99th percentile of the standard normal distribution
+    private static final double Z_P99 = 2.326;
+
+    private Type type = Type.LOG_NORMAL;
+    private long min = 0L;
+    private long median = 20L;
+    private long p99 = 200L;
+    private long max = 2000L;
+
+    /**
+     * Draws a latency from the distribution.
+     *
+     * @param random
+     *            the source of randomness
+     * @return the latency in milliseconds
+     */
+    public long sample(Random random) {
+        return switch (type) {
+            case FIXED -> median;
+            case UNIFORM -> min + (long) (random.nextDouble() * (max - min + 1));
+            case LOG_NORMAL -> {
+                double sigma = Math.log((double) Math.max(p99, median) / Math.max(median, 1)) / Z_P99;
+                long latency = Math.round(Math.max(median, 1) * Math.exp(sigma * random.nextGaussian()));
+                yield Math.min(Math.max(latency, min), max);
+            }
+        };
+    }
+
+    /**
+     * Latency distribution types.
+     */
+    public enum Type {
+        FIXED, UNIFORM, LOG_NORMAL
+    }
+}
@@ -0,0 +1,62 @@
+package com.erebelo.spring.common.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free recorder of request latencies. Every sample is kept, so that the
+ * reported percentiles are exact; the capacity is the number of requests
+ * scheduled during the measurement, and samples beyond it are ignored.
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latencyNanos
+     *            the latency in nanoseconds
+     */
+    public void record(long latencyNanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = latencyNanos;
+        }
+    }
+
+    /**
+     * Returns the recorded latencies in ascending order. It must only be called
+     * once all the recording threads completed.
+     *
+     * @return the sorted latencies in nanoseconds
+     */
+    public long[] sortedSamples() {
+        long[] sorted = Arrays.copyOf(samples, Math.min(count.get(), samples.length));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the given percentile of sorted latencies, using the nearest-rank
+     * method.
+     *
+     * @param sortedSamples
+     *            the latencies in ascending order
+     * @param percentile
+     *            the percentile, between 0 and 1
+     * @return the latency at the percentile, or zero if there is none
+     */
+    public static long percentile(long[] sortedSamples, double percentile) {
+        if (sortedSamples.length == 0) {
+            return 0L;
+        }
+        int rank = (int) Math.ceil(percentile * sortedSamples.length);
+        return sortedSamples[Math.min(Math.max(rank, 1), sortedSamples.length) - 1];
+    }
+}
@@ -0,0 +1,183 @@
+package com.erebelo.spring.common.loadtest;
+
+import com.erebelo.spring.common.http.MicrometerHttpClientMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Open-loop load generator driving a RestTemplate at a constant target rate.
+ * Requests are scheduled at fixed intervals regardless of the completion of the
+ * previous ones, as real traffic would be, and each is sent from its own
+ * thread, up to the in-flight limit; requests scheduled while the limit is
+ * reached are dropped and counted. Requests scheduled during the warm-up are
+ * sent but not measured, so that connection establishment and JIT compilation
+ * do not skew the results.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+    private final RestOperations restOperations;
+    private final MeterRegistry meterRegistry;
+    private final LoadTestProperties properties;
+
+    /**
+     * Runs the load test against the given URI and waits for all the requests to
+     * complete.
+     *
+     * @param uri
+     *            the URI requested
+     * @return the report of the measured requests
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting
+     */
+    public LoadReport run(URI uri) throws InterruptedException {
+        if (properties.getQps() <= 0 || properties.getMaxInFlight() < 1) {
+            throw new IllegalStateException("Load test qps and max-in-flight must be positive");
+        }
+
+        long interval = Math.max(1L, Math.round(TimeUnit.SECONDS.toNanos(1) / properties.getQps()));
+        long startTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = startTime + TimeUnit.MILLISECONDS.toNanos(properties.getWarmup());
+        long measureEnd = measureStart + TimeUnit.MILLISECONDS.toNanos(properties.getDuration());
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (measureEnd - measureStart) / interval + 2);
+
+        LatencyRecorder latencyRecorder = new LatencyRecorder(capacity);
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(properties.getMaxInFlight());
+        AtomicLong lastCompletion = new AtomicLong(measureStart);
+        long scheduled = 0;
+        long dropped = 0;
+        Timer acquireTimer = meterRegistry.find(MicrometerHttpClientMetrics.CONNECTION_ACQUIRE_METRIC)
+                .tag("service", properties.getService()).timer();
+        long acquireCount = 0;
+        double acquireTotal = 0;
+
+        log.info("Load test of service '{}' at {} req/s: {} ms warm-up, {} ms measurement", properties.getService(),
+                properties.getQps(), properties.getWarmup(), properties.getDuration());
+        ExecutorService executor = Executors.newCachedThreadPool(daemonThreadFactory());
+        try {
+            boolean measuring = false;
+            for (long intendedTime = startTime; intendedTime - measureEnd < 0; intendedTime += interval) {
+                LockSupport.parkNanos(intendedTime - System.nanoTime());
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Load test interrupted");
+                }
+
+                boolean measured = intendedTime - measureStart >= 0;
+                if (measured && !measuring) {
+                    measuring = true;
+                    if (acquireTimer != null) {
+                        acquireCount = acquireTimer.count();
+                        acquireTotal = acquireTimer.totalTime(TimeUnit.NANOSECONDS);
+                    }
+                }
+                if (measured) {
+                    scheduled++;
+                }
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        dropped++;
+                    }
+                    continue;
+                }
+
+                long requestTime = intendedTime;
+                executor.execute(() -> {
+                    try {
+                        String outcome = this.send(uri);
+                        if (measured) {
+                            long completionTime = System.nanoTime();
+                            latencyRecorder.record(completionTime - requestTime);
+                            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                            lastCompletion.accumulateAndGet(completionTime,
+                                    (last, current) -> current - last > 0 ? current : last);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            inFlight.acquire(properties.getMaxInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+        long completed = outcomeCounts.values().stream().mapToLong(Long::longValue).sum();
+        long elapsed = Math.max(lastCompletion.get() - measureStart, 1L);
+        double throughput = completed * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+
+        return new LoadReport(properties.getService(), properties.getQps(), scheduled, dropped, outcomeCounts,
+                throughput, LoadReport.Latency.of(latencyRecorder.sortedSamples()),
+                this.poolWait(acquireTimer, acquireCount, acquireTotal));
+    }
+
+    /**
+     * Sends a request and reads the whole response body.
+     *
+     * @return the response status, or the simple name of the exception thrown
+     */
+    private String send(URI uri) {
+        try {
+            Integer status = restOperations.execute(uri, properties.getMethod(), null, response -> {
+                response.getBody().transferTo(OutputStream.nullOutputStream());
+                return response.getStatusCode().value();
+            });
+            return String.valueOf(status);
+        } catch (RestClientResponseException e) {
+            return String.valueOf(e.getStatusCode().value());
+        } catch (ResourceAccessException e) {
+            return (e.getCause() != null ? e.getCause() : e).getClass().getSimpleName();
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    private LoadReport.PoolWait poolWait(Timer acquireTimer, long acquireCount, double acquireTotal) {
+        if (acquireTimer == null) {
+            return null;
+        }
+
+        long count = acquireTimer.count() - acquireCount;
+        double mean = count > 0 ? (acquireTimer.totalTime(TimeUnit.NANOSECONDS) - acquireTotal) / count : 0;
+        double p99 = 0;
+        for (ValueAtPercentile valueAtPercentile : acquireTimer.takeSnapshot().percentileValues()) {
+            if (valueAtPercentile.percentile() == 0.99) {
+                p99 = valueAtPercentile.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        return new LoadReport.PoolWait(mean, p99, acquireTimer.max(TimeUnit.NANOSECONDS));
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "LoadGenerator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.erebelo.spring.common.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of a load test run, covering the requests scheduled after the
+ * warm-up. Latencies are measured from the time each request was scheduled,
+ * not from the time it was sent, so that requests delayed by a saturated client
+ * are accounted for (no coordinated omission).
+ *
+ * @param service
+ *            the service alias
+ * @param targetQps
+ *            the target rate of requests per second
+ * @param scheduled
+ *            the number of requests scheduled
+ * @param dropped
+ *            the number of requests not sent because the in-flight limit was
+ *            reached
+ * @param outcomes
+ *            the number of completed requests per response status or exception
+ * @param throughput
+ *            the achieved rate of completed requests per second
+ * @param latency
+ *            the latency percentiles of the completed requests
+ * @param poolWait
+ *            the time spent waiting to lease a connection from the pool, or
+ *            null if the connection acquire metric of the service is not
+ *            available, as for services on the http2 protocol
+ */
+public record LoadReport(String service, double targetQps, long scheduled, long dropped, Map<String, Long> outcomes,
+        double throughput, Latency latency, PoolWait poolWait) {
+
+    public long completed() {
+        return outcomes.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Formats the report as a human-readable text block.
+     *
+     * @return the formatted report
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Service:    %s%n", service));
+        report.append(String.format("Requests:   %d scheduled, %d completed, %d dropped%n", scheduled,
+                this.completed(), dropped));
+        report.append(String.format("Throughput: %.1f req/s (target %.1f req/s)%n", throughput, targetQps));
+        report.append(String.format("Outcomes:   %s%n", outcomes.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue()).collect(Collectors.joining(", "))));
+        report.append(String.format("Latency:    p50=%s p99=%s p999=%s max=%s%n", millis(latency.p50()),
+                millis(latency.p99()), millis(latency.p999()), millis(latency.max())));
+        report.append(poolWait != null
+                ? String.format("Pool wait:  mean=%s p99=%s max=%s%n", millis(poolWait.mean()),
+                        millis(poolWait.p99()), millis(poolWait.max()))
+                : String.format("Pool wait:  n/a%n"));
+        return report.toString();
+    }
+
+    private static String millis(double nanos) {
+        return String.format("%.2fms", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * Latency percentiles, in nanoseconds.
+     *
+     * @param p50
+     *            the median latency
+     * @param p99
+     *            the 99th percentile latency
+     * @param p999
+     *            the 99.9th percentile latency
+     * @param max
+     *            the maximum latency
+     */
+    public record Latency(long p50, long p99, long p999, long max) {
+
+        public static Latency of(long[] sortedSamples) {
+            return new Latency(LatencyRecorder.percentile(sortedSamples, 0.5),
+                    LatencyRecorder.percentile(sortedSamples, 0.99), LatencyRecorder.percentile(sortedSamples, 0.999),
+                    LatencyRecorder.percentile(sortedSamples, 1.0));
+        }
+    }
+
+    /**
+     * Connection pool wait statistics, in nanoseconds. They cover the time spent
+     * waiting to lease a connection, not the establishment of new connections.
+     * The mean covers the measured requests only, while the p99 and max follow
+     * the rolling window of the metric, which may include the warm-up.
+     *
+     * @param mean
+     *            the mean wait
+     * @param p99
+     *            the 99th percentile wait
+     * @param max
+     *            the maximum wait
+     */
+    public record PoolWait(double mean, double p99, double max) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.erebelo.spring.common.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Command-line application running a load test of the RestTemplate beans of
+ * the Http module against an in-process stub server. The HttpClient settings
+ * are read from the spring.common.http-client properties and the scenario from
+ * the load-test properties, both of which can be overridden on the command
+ * line. The application exits once the report is logged.
+ */
+@SpringBootApplication(scanBasePackages = {"com.erebelo.spring.common.http", "com.erebelo.spring.common.loadtest"})
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(LoadTestApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        System.exit(SpringApplication.exit(application.run(args)));
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StubServer stubServer(LoadTestProperties loadTestProperties) {
+        return new StubServer(loadTestProperties.getStub());
+    }
+}
@@ -0,0 +1,45 @@
+package com.erebelo.spring.common.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+/**
+ * A data class that holds the load test scenario: the service alias whose
+ * RestTemplate is driven, the target rate and duration of the requests, and
+ * the behavior of the stub server answering them. All durations are expressed
+ * in milliseconds.
+ */
+@Data
+@ConfigurationProperties(prefix = "load-test")
+public class LoadTestProperties {
+
+    private String service = "default";
+    private HttpMethod method = HttpMethod.GET;
+    private String path = "/stub";
+    private double qps = 200.0;
+    private long duration = 30000L;
+    private long warmup = 5000L;
+    private int maxInFlight = 1000;
+    private Stub stub = new Stub();
+
+    /**
+     * A data class that holds the stub server properties. Each response is
+     * delayed by a latency drawn from the distribution, then answered with the
+     * error status at the error rate, or otherwise with a body of the response
+     * size. At the slow drip rate, the body is written in chunks separated by the
+     * drip interval, mimicking a slow or congested upstream.
+     */
+    @Data
+    public static class Stub {
+        private int port = 0;
+        private int threads = 200;
+        private LatencyDistribution latency = new LatencyDistribution();
+        private double errorRate = 0.0;
+        private int errorStatus = 503;
+        private int responseSize = 1024;
+        private double slowDripRate = 0.0;
+        private int dripChunks = 10;
+        private long dripInterval = 100L;
+    }
+}
@@ -0,0 +1,42 @@
+package com.erebelo.spring.common.loadtest;
+
+import com.erebelo.spring.common.http.HttpClientConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Runs the configured load test once the application context is started,
+ * sending the requests of the RestTemplate of the configured service alias to
+ * the stub server, then logs the report.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class LoadTestRunner implements ApplicationRunner {
+
+    private final BeanFactory beanFactory;
+    private final LoadTestProperties loadTestProperties;
+    private final StubServer stubServer;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        String service = loadTestProperties.getService();
+        String beanName = HttpClientConfiguration.DEFAULT_REST_TEMPLATE_NAME.equals(service)
+                ? "RestTemplate"
+                : String.format("%sRestTemplate", service);
+        RestTemplate restTemplate = beanFactory.getBean(beanName, RestTemplate.class);
+        URI uri = URI
+                .create(String.format("http://localhost:%d%s", stubServer.getPort(), loadTestProperties.getPath()));
+
+        LoadReport report = new LoadGenerator(restTemplate, meterRegistry, loadTestProperties).run(uri);
+        log.info("Load test report:{}{}", System.lineSeparator(), report.format());
+    }
+}
@@ -0,0 +1,117 @@
+package com.erebelo.spring.common.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * In-process HTTP server answering every path with the latency, errors and
+ * slow-drip responses configured for the load test, so that the HTTP clients
+ * can be exercised without any network access or upstream service. It is
+ * based on the HTTP server bundled with the JDK and listens on the loopback
+ * interface only.
+ */
+@Log4j2
+public class StubServer {
+
+    private final LoadTestProperties.Stub properties;
+    private final byte[] responseBody;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public StubServer(LoadTestProperties.Stub properties) {
+        this.properties = properties;
+        this.responseBody = new byte[properties.getResponseSize()];
+        Arrays.fill(responseBody, (byte) 'x');
+    }
+
+    /**
+     * Starts the server on the configured port, or on a random free port if it is
+     * zero.
+     *
+     * @throws IOException
+     *             if the server cannot be bound
+     */
+    public void start() throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "StubServer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", properties.getPort()), 1024);
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        log.info("Stub server listening on port {}", this.getPort());
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.transferTo(OutputStream.nullOutputStream());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(properties.getLatency().sample(random));
+
+            if (random.nextDouble() < properties.getErrorRate()) {
+                exchange.sendResponseHeaders(properties.getErrorStatus(), -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, responseBody.length > 0 ? responseBody.length : -1);
+            try (OutputStream responseStream = exchange.getResponseBody()) {
+                if (random.nextDouble() < properties.getSlowDripRate()) {
+                    this.drip(responseStream);
+                } else {
+                    responseStream.write(responseBody);
+                }
+            }
+        } catch (IOException e) {
+            // The client gave up on the response, e.g. after a read timeout
+            log.debug("Stub response aborted: {}", e.getMessage());
+        }
+    }
+
+    private void drip(OutputStream responseStream) throws IOException {
+        int chunks = Math.max(1, Math.min(properties.getDripChunks(), responseBody.length));
+        int chunkSize = (responseBody.length + chunks - 1) / chunks;
+        for (int offset = 0; offset < responseBody.length; offset += chunkSize) {
+            if (offset > 0) {
+                sleep(properties.getDripInterval());
+            }
+            responseStream.write(responseBody, offset, Math.min(chunkSize, responseBody.length - offset));
+            responseStream.flush();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.erebelo.spring.common.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LatencyDistributionTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void testLogNormalMatchesMedianAndP99() {
+        LatencyDistribution latencyDistribution = new LatencyDistribution();
+        latencyDistribution.setMedian(20);
+        latencyDistribution.setP99(200);
+        latencyDistribution.setMax(1000);
+
+        long[] samples = this.sample(latencyDistribution);
+
+        assertEquals(20, LatencyRecorder.percentile(samples, 0.5), 2);
+        assertEquals(200, LatencyRecorder.percentile(samples, 0.99), 30);
+        assertTrue(LatencyRecorder.percentile(samples, 1.0) <= 1000);
+    }
+
+    @Test
+    void testUniformStaysWithinBounds() {
+        LatencyDistribution latencyDistribution = new LatencyDistribution();
+        latencyDistribution.setType(LatencyDistribution.Type.UNIFORM);
+        latencyDistribution.setMin(10);
+        latencyDistribution.setMax(30);
+
+        long[] samples = this.sample(latencyDistribution);
+
+        assertEquals(10, samples[0]);
+        assertEquals(30, samples[samples.length - 1]);
+        assertEquals(20, LatencyRecorder.percentile(samples, 0.5), 1);
+    }
+
+    private long[] sample(LatencyDistribution latencyDistribution) {
+        long[] samples = new long[10000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = latencyDistribution.sample(random);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+}
@@ -0,0 +1,65 @@
+package com.erebelo.spring.common.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+class LoadGeneratorTest {
+
+    private final LoadTestProperties properties = new LoadTestProperties();
+    private StubServer stubServer;
+    private URI uri;
+
+    @BeforeEach
+    void setup() throws Exception {
+        properties.getStub().getLatency().setType(LatencyDistribution.Type.FIXED);
+        properties.getStub().getLatency().setMedian(50);
+        properties.setQps(100);
+        properties.setWarmup(200);
+        properties.setDuration(1000);
+
+        stubServer = new StubServer(properties.getStub());
+        stubServer.start();
+        uri = URI.create("http://localhost:" + stubServer.getPort() + "/stub");
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.stop();
+    }
+
+    @Test
+    void testRunAtTargetRate() throws InterruptedException {
+        properties.getStub().setErrorRate(0.2);
+
+        LoadReport report = new LoadGenerator(new RestTemplate(), new SimpleMeterRegistry(), properties).run(uri);
+
+        assertEquals(100, report.scheduled(), 1);
+        assertEquals(0, report.dropped());
+        assertEquals(report.scheduled(), report.completed());
+        assertTrue(report.outcomes().get("200") > 0 && report.outcomes().get("503") > 0);
+        assertEquals(100, report.throughput(), 15);
+        assertTrue(report.latency().p50() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(report.latency().p50() <= report.latency().p99());
+        assertNull(report.poolWait());
+    }
+
+    @Test
+    void testRequestsBeyondInFlightLimitAreDropped() throws InterruptedException {
+        properties.setMaxInFlight(1);
+
+        LoadReport report = new LoadGenerator(new RestTemplate(), new SimpleMeterRegistry(), properties).run(uri);
+
+        // One request at a time, each taking 50 ms, out of one every 10 ms
+        assertTrue(report.dropped() > report.scheduled() / 2);
+        assertEquals(report.scheduled() - report.dropped(), report.completed());
+    }
+}
@@ -0,0 +1,78 @@
+package com.erebelo.spring.common.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StubServerTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private StubServer stubServer;
+
+    @AfterEach
+    void tearDown() {
+        stubServer.stop();
+    }
+
+    @Test
+    void testFixedLatency() throws Exception {
+        LoadTestProperties.Stub properties = new LoadTestProperties.Stub();
+        properties.getLatency().setType(LatencyDistribution.Type.FIXED);
+        properties.getLatency().setMedian(100);
+        properties.setResponseSize(64);
+
+        long startTime = System.nanoTime();
+        HttpResponse<byte[]> response = this.send(properties);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(64, response.body().length);
+        assertTrue(elapsed >= 100, "Expected the latency to apply, elapsed " + elapsed + " ms");
+    }
+
+    @Test
+    void testErrorRate() throws Exception {
+        LoadTestProperties.Stub properties = new LoadTestProperties.Stub();
+        properties.getLatency().setType(LatencyDistribution.Type.FIXED);
+        properties.getLatency().setMedian(0);
+        properties.setErrorRate(1.0);
+        properties.setErrorStatus(429);
+
+        assertEquals(429, this.send(properties).statusCode());
+    }
+
+    @Test
+    void testSlowDrip() throws Exception {
+        LoadTestProperties.Stub properties = new LoadTestProperties.Stub();
+        properties.getLatency().setType(LatencyDistribution.Type.FIXED);
+        properties.getLatency().setMedian(0);
+        properties.setSlowDripRate(1.0);
+        properties.setResponseSize(100);
+        properties.setDripChunks(5);
+        properties.setDripInterval(50);
+
+        long startTime = System.nanoTime();
+        HttpResponse<byte[]> response = this.send(properties);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertEquals(100, response.body().length);
+        assertTrue(elapsed >= 200, "Expected the body to be dripped, elapsed " + elapsed + " ms");
+    }
+
+    private HttpResponse<byte[]> send(LoadTestProperties.Stub properties) throws IOException, InterruptedException {
+        stubServer = new StubServer(properties);
+        stubServer.start();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + stubServer.getPort() + "/stub"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -3,6 +3,7 @@ package com.erebelo.spring.common.logging;
 import static com.erebelo.spring.common.utils.http.HttpTraceHeader.getDefaultHttpTraceHeaders;
 
 import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.erebelo.spring.common.utils.http.RequestDeadline;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +11,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Map;
 import org.apache.logging.log4j.ThreadContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
@@ -31,9 +33,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @ConditionalOnProperty(prefix = "spring.common", name = "logging-context-filter.enabled", matchIfMissing = true)
 public class ThreadContextFilter extends OncePerRequestFilter {
 
+    // Time (ms) allowed to handle requests received without a RequestDeadline
+    // header, after which a deadline is created for them; 0 creates none
+    @Value("${spring.common.logging-context-filter.request-timeout:0}")
+    private long requestTimeout;
+
     /**
      * Processes the HTTP request, adding headers to the ThreadContext and passing
-     * the request along the filter chain. Clears the ThreadContext afterward to
+     * the request along the filter chain. Requests received without a deadline
+     * are given one when a request timeout is configured, so that it is
+     * propagated to the outgoing calls. Clears the ThreadContext afterward to
      * prevent leaks.
      */
     @Override
@@ -41,6 +50,10 @@ public class ThreadContextFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain) throws ServletException, IOException {
         try {
             Map<String, String> httpHeaders = getDefaultHttpTraceHeaders(request);
+            if (requestTimeout > 0) {
+                httpHeaders = RequestDeadline.withDefaultDeadline(httpHeaders, requestTimeout);
+                HeaderContextHolder.set(httpHeaders);
+            }
             httpHeaders.forEach(ThreadContext::put);
 
             filterChain.doFilter(request, response);
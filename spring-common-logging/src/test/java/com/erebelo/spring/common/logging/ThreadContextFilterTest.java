@@ -1,16 +1,21 @@
 package com.erebelo.spring.common.logging;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import com.erebelo.spring.common.utils.http.HeaderContextHolder;
+import com.erebelo.spring.common.utils.http.RequestDeadline;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import org.apache.logging.log4j.ThreadContext;
@@ -20,6 +25,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class ThreadContextFilterTest {
@@ -122,4 +128,45 @@ class ThreadContextFilterTest {
             threadContextMockedStatic.verify(ThreadContext::clearMap);
         }
     }
+
+    @Test
+    void testDoFilterInternalCreatesRequestDeadline() throws ServletException, IOException {
+        ReflectionTestUtils.setField(loggingFilter, "requestTimeout", 1000L);
+        given(servletRequestMock.getHeader(REQUEST_ID_HEADER)).willReturn("request-id");
+        Map<String, String> filterHeaders = new HashMap<>();
+
+        try {
+            long startTime = System.currentTimeMillis();
+            loggingFilter.doFilter(servletRequestMock, servletResponseMock, (request, response) -> {
+                filterHeaders.putAll(HeaderContextHolder.get());
+                filterHeaders.put("logged", ThreadContext.get(RequestDeadline.REQUEST_DEADLINE_HEADER));
+            });
+
+            long deadline = Long.parseLong(filterHeaders.get(RequestDeadline.REQUEST_DEADLINE_HEADER));
+            assertEquals("request-id", filterHeaders.get(REQUEST_ID_HEADER));
+            assertTrue(deadline >= startTime + 1000 && deadline <= System.currentTimeMillis() + 1000);
+            assertEquals(String.valueOf(deadline), filterHeaders.get("logged"));
+            assertFalse(HeaderContextHolder.isPresent());
+        } finally {
+            HeaderContextHolder.remove();
+        }
+    }
+
+    @Test
+    void testDoFilterInternalKeepsReceivedRequestDeadline() throws ServletException, IOException {
+        ReflectionTestUtils.setField(loggingFilter, "requestTimeout", 1000L);
+        String deadline = String.valueOf(System.currentTimeMillis() + 200);
+        given(servletRequestMock.getHeader(REQUEST_ID_HEADER)).willReturn("request-id");
+        given(servletRequestMock.getHeader(RequestDeadline.REQUEST_DEADLINE_HEADER)).willReturn(deadline);
+        Map<String, String> filterHeaders = new HashMap<>();
+
+        try {
+            loggingFilter.doFilter(servletRequestMock, servletResponseMock,
+                    (request, response) -> filterHeaders.putAll(HeaderContextHolder.get()));
+
+            assertEquals(deadline, filterHeaders.get(RequestDeadline.REQUEST_DEADLINE_HEADER));
+        } finally {
+            HeaderContextHolder.remove();
+        }
+    }
 }
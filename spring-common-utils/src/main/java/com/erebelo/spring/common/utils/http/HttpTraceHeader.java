@@ -4,12 +4,12 @@ import static org.apache.commons.lang3.StringUtils.split;
 import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.context.request.RequestAttributes;
@@ -28,7 +28,7 @@ public class HttpTraceHeader {
     private static final String REQUEST_ID_HEADER_PREFIX = "GEN-";
 
     static {
-        REQUEST_HEADER_LIST = Collections.singletonList(REQUEST_ID_HEADER);
+        REQUEST_HEADER_LIST = List.of(REQUEST_ID_HEADER, RequestDeadline.REQUEST_DEADLINE_HEADER);
     }
 
     /**
@@ -50,13 +50,51 @@ public class HttpTraceHeader {
         return multiValueMapHttpHeaders;
     }
 
+    /**
+     * Adds the trace headers of the current thread to the given HttpHeaders. The
+     * headers are written straight from the snapshot returned by
+     * getCurrentHttpTraceHeaders(), so that no intermediate structure is created
+     * per call.
+     *
+     * @param httpHeaders
+     *            the HttpHeaders of the outgoing request
+     */
+    public static void addDefaultHttpTraceHeaders(HttpHeaders httpHeaders) {
+        getCurrentHttpTraceHeaders().forEach(httpHeaders::add);
+    }
+
+    /**
+     * Returns the trace headers of the current thread without requiring an HTTP
+     * request. The snapshot held by HeaderContextHolder is returned when present;
+     * otherwise it is created from the current HttpServletRequest, if any. Outside
+     * a request (e.g. schedulers, message listeners or startup), a new RequestID is
+     * generated for each call and not stored, so that unrelated tasks run by the
+     * same thread do not share it; set HeaderContextHolder to correlate several
+     * calls.
+     *
+     * @return an immutable Map containing the trace headers
+     */
+    public static Map<String, String> getCurrentHttpTraceHeaders() {
+        if (HeaderContextHolder.isPresent()) {
+            return HeaderContextHolder.get();
+        }
+
+        if (getRequestAttributes() instanceof ServletRequestAttributes servletRequestAttributes) {
+            return getDefaultHttpTraceHeaders(servletRequestAttributes.getRequest());
+        }
+
+        return Map.of(REQUEST_ID_HEADER, REQUEST_ID_HEADER_PREFIX + UUID.randomUUID());
+    }
+
     /**
      * Filters HTTP headers from a given HttpServletRequest and adds them to a Map
-     * structure, utilizing ThreadLocal storage for managing header context.
+     * structure, utilizing ThreadLocal storage for managing header context. The
+     * stored Map is an immutable snapshot, computed once per request and shared
+     * by every outgoing call made while handling it.
      *
      * @param httpServletRequest
      *            the HttpServletRequest containing the headers
-     * @return a Map containing the filtered HTTP headers
+     * @return an immutable Map containing the filtered HTTP headers
      */
     public static Map<String, String> getDefaultHttpTraceHeaders(HttpServletRequest httpServletRequest) {
         if (!HeaderContextHolder.isPresent()) {
@@ -65,7 +103,11 @@ public class HttpTraceHeader {
             // If RequestID is not present, generate a new UUID
             httpHeaders.computeIfAbsent(REQUEST_ID_HEADER, k -> REQUEST_ID_HEADER_PREFIX + UUID.randomUUID());
 
-            HeaderContextHolder.set(httpHeaders);
+            // Drop a RequestDeadline that is not a valid deadline
+            httpHeaders.computeIfPresent(RequestDeadline.REQUEST_DEADLINE_HEADER,
+                    (k, v) -> RequestDeadline.parse(v) != null ? v : null);
+
+            HeaderContextHolder.set(Map.copyOf(httpHeaders));
         }
 
         return HeaderContextHolder.get();
@@ -0,0 +1,83 @@
+package com.erebelo.spring.common.utils.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Contains functions for handling the request deadline, propagated across
+ * services through the RequestDeadline header along with the other trace
+ * headers. The deadline is the absolute time, in epoch milliseconds, after
+ * which the response to the original request will no longer be used, so that
+ * work done on its behalf can be dropped once it is reached. Clocks of the
+ * services are expected to be synchronized.
+ */
+@UtilityClass
+public class RequestDeadline {
+
+    public static final String REQUEST_DEADLINE_HEADER = "RequestDeadline";
+
+    /**
+     * Parses a request deadline header value.
+     *
+     * @param headerValue
+     *            the header value, may be null
+     * @return the deadline in epoch milliseconds, or null if the value is absent
+     *         or not a valid deadline
+     */
+    public static Long parse(String headerValue) {
+        if (headerValue == null) {
+            return null;
+        }
+        try {
+            long deadline = Long.parseLong(headerValue.trim());
+            return deadline > 0 ? deadline : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the time left until the deadline held by the given trace headers.
+     *
+     * @param httpHeaders
+     *            the trace headers
+     * @return the remaining time in milliseconds, zero or negative once the
+     *         deadline is reached, or null if no deadline is set
+     */
+    public static Long getRemainingMillis(Map<String, String> httpHeaders) {
+        Long deadline = parse(httpHeaders.get(REQUEST_DEADLINE_HEADER));
+        return deadline != null ? deadline - System.currentTimeMillis() : null;
+    }
+
+    /**
+     * Returns the time left until the deadline of the current request, or of the
+     * task run by the current thread.
+     *
+     * @return the remaining time in milliseconds, zero or negative once the
+     *         deadline is reached, or null if no deadline is set
+     */
+    public static Long getRemainingMillis() {
+        return HeaderContextHolder.isPresent() ? getRemainingMillis(HeaderContextHolder.get()) : null;
+    }
+
+    /**
+     * Returns trace headers holding a deadline the given timeout from now,
+     * unless they already hold one.
+     *
+     * @param httpHeaders
+     *            the trace headers
+     * @param timeoutMillis
+     *            the time allowed to handle the request, in milliseconds
+     * @return an immutable Map containing the trace headers and the deadline
+     */
+    public static Map<String, String> withDefaultDeadline(Map<String, String> httpHeaders, long timeoutMillis) {
+        if (parse(httpHeaders.get(REQUEST_DEADLINE_HEADER)) != null) {
+            return httpHeaders;
+        }
+
+        Map<String, String> deadlineHeaders = new HashMap<>(httpHeaders);
+        deadlineHeaders.put(REQUEST_DEADLINE_HEADER, String.valueOf(System.currentTimeMillis() + timeoutMillis));
+        return Map.copyOf(deadlineHeaders);
+    }
+}
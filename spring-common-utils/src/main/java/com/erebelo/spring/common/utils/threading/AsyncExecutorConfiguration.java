@@ -2,13 +2,21 @@ package com.erebelo.spring.common.utils.threading;
 
 import com.erebelo.spring.common.utils.http.HeaderContextHolder;
 import com.erebelo.spring.common.utils.http.HttpTraceHeader;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.apache.logging.log4j.ThreadContext;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.context.request.RequestAttributes;
@@ -30,35 +38,142 @@ import org.springframework.web.context.request.RequestContextHolder;
  * This class is used when injecting an {@link Executor} or
  * {@link ThreadPoolTaskExecutor} dependency into a service class. It is only
  * necessary to configure this if there is a need to modify the thread pool
- * settings, such as core pool size, maximum pool size, or queue capacity. If
+ * settings, such as core pool size, maximum pool size, queue capacity or
+ * rejection policy, set through {@link AsyncExecutorProperties}, or to publish
+ * the executor metrics when a metrics library is available. If
  * the default thread pool configuration is sufficient, and only the propagation
  * of HTTP request attributes and {@link ThreadContext} to new threads is
  * required, then using {@link AsyncThreadContext} alone is enough without the
  * need for custom thread pool configurations.
  * </p>
+ * <p>
+ * Tasks run on a pool of platform threads by default. Setting
+ * spring.common.async-task-executor.mode=virtual runs each task on its own
+ * virtual thread instead (JDK 21 and later), which suits tasks mostly waiting
+ * on blocking I/O.
+ * </p>
  */
 @Configuration
+@EnableConfigurationProperties(AsyncExecutorProperties.class)
 @ConditionalOnProperty(prefix = "spring.common", name = "async-task-executor.enabled", havingValue = "true")
 public class AsyncExecutorConfiguration {
 
+    public static final String ASYNC_TASK_EXECUTOR_NAME = "asyncTaskExecutor";
+
+    private static final int VIRTUAL_THREADS_MIN_JDK_VERSION = 21;
+
     /**
      * Creates and configures a ThreadPoolTaskExecutor for executing asynchronous
-     * tasks.
+     * tasks on platform threads. This is the default mode.
      *
+     * @param asyncExecutorProperties
+     *            the asynchronous task executor properties
+     * @param asyncExecutorMetricsProvider
+     *            the metrics hooks, available when a metrics library is present
      * @return a configured ThreadPoolTaskExecutor instance
+     * @throws IllegalStateException
+     *             if the pool sizes are not valid
      */
-    @Bean
-    public ThreadPoolTaskExecutor asyncTaskExecutor() {
+    @Bean(ASYNC_TASK_EXECUTOR_NAME)
+    @ConditionalOnProperty(prefix = "spring.common", name = "async-task-executor.mode", havingValue = "platform",
+            matchIfMissing = true)
+    public ThreadPoolTaskExecutor asyncTaskExecutor(AsyncExecutorProperties asyncExecutorProperties,
+            ObjectProvider<AsyncExecutorMetrics> asyncExecutorMetricsProvider) {
+        if (asyncExecutorProperties.getMaxPoolSize() < 1
+                || asyncExecutorProperties.getCorePoolSize() < 0
+                || asyncExecutorProperties.getMaxPoolSize() < asyncExecutorProperties.getCorePoolSize()) {
+            throw new IllegalStateException(String.format(
+                    "Async task executor max pool size (%d) must be positive and not lower than core pool size (%d)",
+                    asyncExecutorProperties.getMaxPoolSize(), asyncExecutorProperties.getCorePoolSize()));
+        }
+        AsyncExecutorMetrics asyncExecutorMetrics = asyncExecutorMetricsProvider.getIfAvailable();
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(20);
-        executor.setQueueCapacity(500);
+        executor.setCorePoolSize(asyncExecutorProperties.getCorePoolSize());
+        executor.setMaxPoolSize(asyncExecutorProperties.getMaxPoolSize());
+        executor.setQueueCapacity(asyncExecutorProperties.getQueueCapacity());
+        executor.setKeepAliveSeconds(asyncExecutorProperties.getKeepAliveSeconds());
+        executor.setRejectedExecutionHandler(
+                rejectedExecutionHandler(asyncExecutorProperties.getRejectionPolicy(), asyncExecutorMetrics));
+        executor.setWaitForTasksToCompleteOnShutdown(asyncExecutorProperties.isWaitForTasksOnShutdown());
+        executor.setAwaitTerminationMillis(asyncExecutorProperties.getAwaitTermination());
         executor.setThreadNamePrefix("AsyncThread-");
-        executor.setTaskDecorator(new ContextCopyingTaskDecorator());
+        executor.setTaskDecorator(taskDecorator(asyncExecutorMetrics));
         executor.initialize();
+
+        if (asyncExecutorMetrics != null) {
+            asyncExecutorMetrics.bindExecutor(ASYNC_TASK_EXECUTOR_NAME, executor);
+        }
+        return executor;
+    }
+
+    /**
+     * Creates and configures a SimpleAsyncTaskExecutor running each asynchronous
+     * task on its own virtual thread. When a concurrency limit is set, tasks
+     * beyond it wait for a permit on their virtual thread, so that submitting a
+     * task never blocks the caller.
+     *
+     * @param asyncExecutorProperties
+     *            the asynchronous task executor properties
+     * @param asyncExecutorMetricsProvider
+     *            the metrics hooks, available when a metrics library is present
+     * @return a configured SimpleAsyncTaskExecutor instance
+     * @throws IllegalStateException
+     *             if the JDK does not support virtual threads, or if the
+     *             concurrency limit is not positive
+     */
+    @Bean(ASYNC_TASK_EXECUTOR_NAME)
+    @ConditionalOnProperty(prefix = "spring.common", name = "async-task-executor.mode", havingValue = "virtual")
+    public SimpleAsyncTaskExecutor virtualThreadTaskExecutor(AsyncExecutorProperties asyncExecutorProperties,
+            ObjectProvider<AsyncExecutorMetrics> asyncExecutorMetricsProvider) {
+        if (Runtime.version().feature() < VIRTUAL_THREADS_MIN_JDK_VERSION) {
+            throw new IllegalStateException(String.format(
+                    "Virtual threads require JDK %d or later, running on JDK %d: set "
+                            + "spring.common.async-task-executor.mode=platform",
+                    VIRTUAL_THREADS_MIN_JDK_VERSION, Runtime.version().feature()));
+        }
+
+        TaskDecorator taskDecorator = taskDecorator(asyncExecutorMetricsProvider.getIfAvailable());
+        Integer concurrencyLimit = asyncExecutorProperties.getConcurrencyLimit();
+        if (concurrencyLimit != null) {
+            if (concurrencyLimit < 1) {
+                throw new IllegalStateException("Async task executor concurrency limit must be positive: "
+                        + concurrencyLimit);
+            }
+            taskDecorator = new ConcurrencyLimitingTaskDecorator(concurrencyLimit, taskDecorator);
+        }
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("AsyncVirtualThread-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(taskDecorator);
         return executor;
     }
 
+    /**
+     * Returns the decorator copying the caller context to the tasks, wrapped by
+     * the metrics decorator, if any, so that the measured time covers the whole
+     * task.
+     */
+    private static TaskDecorator taskDecorator(AsyncExecutorMetrics asyncExecutorMetrics) {
+        TaskDecorator contextCopyingTaskDecorator = new ContextCopyingTaskDecorator();
+        return asyncExecutorMetrics != null
+                ? new CompositeTaskDecorator(List.of(contextCopyingTaskDecorator,
+                        asyncExecutorMetrics.taskDecorator(ASYNC_TASK_EXECUTOR_NAME)))
+                : contextCopyingTaskDecorator;
+    }
+
+    private static RejectedExecutionHandler rejectedExecutionHandler(
+            AsyncExecutorProperties.RejectionPolicy rejectionPolicy, AsyncExecutorMetrics asyncExecutorMetrics) {
+        RejectedExecutionHandler rejectedExecutionHandler = switch (rejectionPolicy) {
+            case CALLER_RUNS -> new ContextPreservingCallerRunsPolicy();
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+        };
+        return asyncExecutorMetrics != null
+                ? asyncExecutorMetrics.rejectedExecutionHandler(ASYNC_TASK_EXECUTOR_NAME, rejectedExecutionHandler)
+                : rejectedExecutionHandler;
+    }
+
     /**
      * A TaskDecorator implementation that copies the current request attributes and
      * HTTP headers to the runnable task's execution context. It ensures that
@@ -99,4 +214,71 @@ public class AsyncExecutorConfiguration {
             };
         }
     }
+
+    /**
+     * A TaskDecorator implementation that caps the number of tasks running at
+     * once with a semaphore. The permit is acquired by the task itself once
+     * started, so that tasks beyond the limit wait on their own (virtual) thread
+     * while the caller carries on, and is released when the task completes. The
+     * context of the caller is still captured on submission by the delegate
+     * decorator.
+     */
+    static class ConcurrencyLimitingTaskDecorator implements TaskDecorator {
+
+        private final Semaphore permits;
+        private final TaskDecorator delegate;
+
+        ConcurrencyLimitingTaskDecorator(int concurrencyLimit, TaskDecorator delegate) {
+            this.permits = new Semaphore(concurrencyLimit);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public @NonNull Runnable decorate(@NonNull Runnable runnable) {
+            Runnable decoratedRunnable = delegate.decorate(runnable);
+
+            return () -> {
+                permits.acquireUninterruptibly();
+                try {
+                    decoratedRunnable.run();
+                } finally {
+                    permits.release();
+                }
+            };
+        }
+    }
+
+    /**
+     * A RejectedExecutionHandler implementation running rejected tasks on the
+     * submitting thread, unless the executor is shut down. The task being already
+     * decorated, it clears the request attributes, HTTP headers and logging
+     * context of the thread once completed; this policy saves them beforehand and
+     * restores them afterwards, so that the caller keeps its own context.
+     */
+    static class ContextPreservingCallerRunsPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+
+            RequestAttributes contextAttributes = RequestContextHolder.getRequestAttributes();
+            Map<String, String> httpHeaders = HeaderContextHolder.isPresent() ? HeaderContextHolder.get() : null;
+            Map<String, String> loggingContext = ThreadContext.getImmutableContext();
+            ThreadContext.ContextStack loggingStack = ThreadContext.cloneStack();
+            try {
+                runnable.run();
+            } finally {
+                RequestContextHolder.setRequestAttributes(contextAttributes);
+                if (httpHeaders != null) {
+                    HeaderContextHolder.set(httpHeaders);
+                } else {
+                    HeaderContextHolder.remove();
+                }
+                ThreadContext.clearAll();
+                ThreadContext.putAll(loggingContext);
+                ThreadContext.setStack(loggingStack.asList());
+            }
+        }
+    }
 }
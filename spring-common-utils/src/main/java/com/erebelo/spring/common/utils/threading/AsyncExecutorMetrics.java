@@ -0,0 +1,47 @@
+package com.erebelo.spring.common.utils.threading;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Instrumentation hooks applied by {@link AsyncExecutorConfiguration} while the
+ * asynchronous task executor is created. It keeps the configuration free of
+ * any metrics library, so implementations are only registered when their
+ * library is available on the classpath.
+ */
+public interface AsyncExecutorMetrics {
+
+    /**
+     * Publishes the queued, active, pool size and completed task counts of a
+     * thread pool executor.
+     *
+     * @param executorName
+     *            the name of the executor
+     * @param executor
+     *            the executor to observe
+     */
+    void bindExecutor(String executorName, ThreadPoolTaskExecutor executor);
+
+    /**
+     * Creates a decorator that records, for every task, the time spent waiting
+     * between its submission and its start, and the time spent running it.
+     *
+     * @param executorName
+     *            the name of the executor
+     * @return a TaskDecorator recording the task metrics
+     */
+    TaskDecorator taskDecorator(String executorName);
+
+    /**
+     * Wraps a rejection handler to count the rejected tasks.
+     *
+     * @param executorName
+     *            the name of the executor
+     * @param rejectedExecutionHandler
+     *            the handler applying the rejection policy
+     * @return a RejectedExecutionHandler counting the rejected tasks
+     */
+    RejectedExecutionHandler rejectedExecutionHandler(String executorName,
+            RejectedExecutionHandler rejectedExecutionHandler);
+}
@@ -0,0 +1,52 @@
+package com.erebelo.spring.common.utils.threading;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * A data class that holds the asynchronous task executor properties. In
+ * PLATFORM mode, tasks run on a pool of platform threads, sized by the core
+ * and maximum pool sizes and the queue capacity; threads beyond the core size
+ * are only created once the queue is full. Tasks submitted while both the
+ * threads and the queue are full are handled by the rejection policy. On
+ * shutdown, the executor can wait for the running and queued tasks to
+ * complete, up to the await termination time, expressed in milliseconds.
+ * <p>
+ * In VIRTUAL mode, available on JDK 21 and later, each task runs on its own
+ * virtual thread, and the number of tasks running at once can be capped by
+ * the concurrency limit; tasks beyond it wait for a permit on their virtual
+ * thread, without blocking the caller.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.common.async-task-executor")
+public class AsyncExecutorProperties {
+
+    private boolean enabled;
+    private Mode mode = Mode.PLATFORM;
+    private int corePoolSize = 10;
+    private int maxPoolSize = 20;
+    private int queueCapacity = 500;
+    private int keepAliveSeconds = 60;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    private boolean waitForTasksOnShutdown;
+    private long awaitTermination = 0L;
+    private Integer concurrencyLimit;
+
+    /**
+     * Executor modes.
+     */
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    /**
+     * Policies applied to the tasks rejected by a full executor. CALLER_RUNS runs
+     * the task on the submitting thread, slowing down the producer, ABORT throws
+     * a TaskRejectedException to the caller, and DISCARD_OLDEST drops the oldest
+     * queued task to make room for the new one.
+     */
+    public enum RejectionPolicy {
+        CALLER_RUNS, ABORT, DISCARD_OLDEST
+    }
+}
@@ -0,0 +1,152 @@
+package com.erebelo.spring.common.utils.threading;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Micrometer implementation of {@link AsyncExecutorMetrics}. Meters are
+ * registered in the application MeterRegistry or, if there is none, in the
+ * Micrometer global registry, and follow the names of the Micrometer executor
+ * metrics (ExecutorServiceMetrics). They are tagged with the executor name
+ * without its TaskExecutor suffix, as Spring Boot actuator does for the task
+ * executor beans.
+ * <p>
+ * The following meters are published:
+ * <ul>
+ * <li>executor.queued, executor.queue.remaining, executor.active,
+ * executor.pool.size, executor.pool.core and executor.pool.max gauges</li>
+ * <li>executor.completed and executor.rejected counters</li>
+ * <li>executor.idle timer, the time tasks wait between their submission and
+ * their start, and executor timer, the time tasks run, with p50, p99 and p999
+ * percentiles</li>
+ * </ul>
+ * When Spring Boot actuator is on the classpath together with an application
+ * MeterRegistry, its task executor metrics already bind the executor under the
+ * same names, so that the gauges and the completed counter are left to it.
+ * This class is only registered when micrometer-core is on the classpath.
+ * </p>
+ */
+@Component
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class MicrometerAsyncExecutorMetrics implements AsyncExecutorMetrics {
+
+    public static final String METRIC_PREFIX = "executor.";
+
+    private static final String EXECUTION_METRIC_NAME = "executor";
+    private static final String TASK_EXECUTOR_SUFFIX = "TaskExecutor";
+    private static final String TASK_EXECUTOR_METRICS_AUTO_CONFIGURATION = "org.springframework.boot.actuate"
+            + ".autoconfigure.metrics.task.TaskExecutorMetricsAutoConfiguration";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final boolean executorBoundByActuator;
+
+    public MicrometerAsyncExecutorMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        MeterRegistry applicationMeterRegistry = meterRegistryProvider.getIfAvailable();
+        this.meterRegistry = applicationMeterRegistry != null ? applicationMeterRegistry : Metrics.globalRegistry;
+        this.executorBoundByActuator = applicationMeterRegistry != null
+                && ClassUtils.isPresent(TASK_EXECUTOR_METRICS_AUTO_CONFIGURATION, getClass().getClassLoader());
+    }
+
+    MicrometerAsyncExecutorMetrics(MeterRegistry meterRegistry, boolean executorBoundByActuator) {
+        this.meterRegistry = meterRegistry;
+        this.executorBoundByActuator = executorBoundByActuator;
+    }
+
+    /**
+     * Registers gauges reading the executor on each scrape, rather than its
+     * current thread pool, since the pool is recreated when the executor is
+     * initialized again by the application context. Nothing is registered when
+     * Spring Boot actuator binds the executor itself.
+     */
+    @Override
+    public void bindExecutor(String executorName, ThreadPoolTaskExecutor executor) {
+        if (executorBoundByActuator) {
+            return;
+        }
+        Tags tags = Tags.of("name", tagName(executorName));
+
+        this.registerGauge("queued", "Tasks waiting in the queue", executor, ThreadPoolTaskExecutor::getQueueSize,
+                tags);
+        this.registerGauge("queue.remaining", "Additional tasks the queue can hold", executor,
+                e -> e.getThreadPoolExecutor().getQueue().remainingCapacity(), tags);
+        this.registerGauge("active", "Threads actively running tasks", executor,
+                ThreadPoolTaskExecutor::getActiveCount, tags);
+        this.registerGauge("pool.size", "Threads in the pool", executor, ThreadPoolTaskExecutor::getPoolSize, tags);
+        this.registerGauge("pool.core", "Core size of the pool", executor, ThreadPoolTaskExecutor::getCorePoolSize,
+                tags);
+        this.registerGauge("pool.max", "Maximum size of the pool", executor, ThreadPoolTaskExecutor::getMaxPoolSize,
+                tags);
+        FunctionCounter
+                .builder(METRIC_PREFIX + "completed", executor,
+                        e -> e.getThreadPoolExecutor().getCompletedTaskCount())
+                .description("Tasks completed by the executor").tags(tags).register(meterRegistry);
+    }
+
+    @Override
+    public TaskDecorator taskDecorator(String executorName) {
+        Timer queueWaitTimer = Timer.builder(METRIC_PREFIX + "idle")
+                .description("Time tasks wait between their submission and their start")
+                .tags("name", tagName(executorName)).publishPercentiles(PERCENTILES).register(meterRegistry);
+        Timer executionTimer = Timer.builder(EXECUTION_METRIC_NAME).description("Time tasks run")
+                .tags("name", tagName(executorName)).publishPercentiles(PERCENTILES).register(meterRegistry);
+
+        return runnable -> {
+            long submitTime = System.nanoTime();
+            return () -> {
+                long startTime = System.nanoTime();
+                queueWaitTimer.record(startTime - submitTime, TimeUnit.NANOSECONDS);
+                try {
+                    runnable.run();
+                } finally {
+                    executionTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+
+    @Override
+    public RejectedExecutionHandler rejectedExecutionHandler(String executorName,
+            RejectedExecutionHandler rejectedExecutionHandler) {
+        Counter rejectedCounter = Counter.builder(METRIC_PREFIX + "rejected")
+                .description("Tasks rejected by the executor").tags("name", tagName(executorName))
+                .register(meterRegistry);
+
+        return (runnable, executor) -> {
+            rejectedCounter.increment();
+            rejectedExecutionHandler.rejectedExecution(runnable, executor);
+        };
+    }
+
+    /**
+     * Returns the executor name without its TaskExecutor suffix, the name given
+     * to the task executor beans by Spring Boot actuator.
+     */
+    private static String tagName(String executorName) {
+        return executorName.length() > TASK_EXECUTOR_SUFFIX.length()
+                && StringUtils.endsWithIgnoreCase(executorName, TASK_EXECUTOR_SUFFIX)
+                        ? executorName.substring(0, executorName.length() - TASK_EXECUTOR_SUFFIX.length())
+                        : executorName;
+    }
+
+    private <T> void registerGauge(String name, String description, T executor, ToDoubleFunction<T> value,
+            Tags tags) {
+        Gauge.builder(METRIC_PREFIX + name, executor, value).description(description).tags(tags)
+                .strongReference(true).register(meterRegistry);
+    }
+}
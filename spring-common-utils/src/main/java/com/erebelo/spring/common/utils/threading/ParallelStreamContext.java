@@ -2,17 +2,43 @@ package com.erebelo.spring.common.utils.threading;
 
 import com.erebelo.spring.common.utils.http.HeaderContextHolder;
 import com.erebelo.spring.common.utils.http.HttpTraceHeader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 import lombok.experimental.UtilityClass;
 import org.apache.logging.log4j.ThreadContext;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 
+/**
+ * Runs parallel stream operations while preserving the request and logging
+ * contexts across threads. The contexts are set before each element is
+ * processed and cleaned up afterward.
+ * <p>
+ * Every operation runs on the JVM-wide common ForkJoinPool by default, which is
+ * shared with all the other parallel streams and CompletableFutures of the
+ * process. CPU-heavy work can be isolated on a dedicated pool, supplied by the
+ * caller or obtained by name with {@link #pool(String, int)}, so that it
+ * cannot stall the rest of the application.
+ * </p>
+ */
 @UtilityClass
 public class ParallelStreamContext {
 
+    private static final Map<String, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
     /**
      * Processes each element of the given stream in parallel while preserving the
      * request and logging contexts across threads. The contexts are set before
@@ -36,11 +62,336 @@ public class ParallelStreamContext {
      *            the type of elements in the stream
      */
     public static <T> void forEach(Stream<T> stream, Consumer<T> action) {
-        long mainThreadId = Thread.currentThread().getId();
-        RequestAttributes contextAttributes = HttpTraceHeader.getRequestAttributes();
-        Map<String, String> loggingContext = HeaderContextHolder.get();
+        forEach(ForkJoinPool.commonPool(), stream, action);
+    }
+
+    /**
+     * Processes each element of the given stream in parallel on the given pool,
+     * while preserving the request and logging contexts across threads.
+     *
+     * @param pool
+     *            the pool running the stream
+     * @param stream
+     *            the stream of elements to process
+     * @param action
+     *            the action to perform on each element
+     * @param <T>
+     *            the type of elements in the stream
+     */
+    public static <T> void forEach(ForkJoinPool pool, Stream<T> stream, Consumer<T> action) {
+        CallerContext callerContext = CallerContext.capture();
+
+        execute(pool, () -> {
+            stream.parallel().forEach(item -> callerContext.run(() -> {
+                action.accept(item);
+                return null;
+            }));
+            return null;
+        });
+    }
+
+    /**
+     * Maps each element of the given stream in parallel while preserving the
+     * request and logging contexts across threads, and returns the results in
+     * the encounter order of the stream.
+     *
+     * <p>
+     * Example usage:
+     * </p>
+     *
+     * <pre>
+     * List&lt;Result&gt; results = ParallelStreamContext.map(ids.stream(), id -> {
+     * 	// Code that needs access to the request attributes and ThreadContext
+     * 	return service.process(id);
+     * });
+     * </pre>
+     *
+     * @param stream
+     *            the stream of elements to map
+     * @param mapper
+     *            the function applied to each element
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <R>
+     *            the type of the results
+     * @return the results, in the encounter order of the stream
+     */
+    public static <T, R> List<R> map(Stream<T> stream, Function<? super T, ? extends R> mapper) {
+        return map(ForkJoinPool.commonPool(), stream, mapper);
+    }
 
-        stream.parallel().forEach(item -> {
+    /**
+     * Maps each element of the given stream in parallel on the given pool, while
+     * preserving the request and logging contexts across threads.
+     *
+     * @param pool
+     *            the pool running the stream
+     * @param stream
+     *            the stream of elements to map
+     * @param mapper
+     *            the function applied to each element
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <R>
+     *            the type of the results
+     * @return the results, in the encounter order of the stream
+     */
+    public static <T, R> List<R> map(ForkJoinPool pool, Stream<T> stream, Function<? super T, ? extends R> mapper) {
+        CallerContext callerContext = CallerContext.capture();
+
+        return execute(pool, () -> stream.parallel()
+                .<R>map(item -> callerContext.run(() -> mapper.apply(item))).toList());
+    }
+
+    /**
+     * Maps each element of the given stream to a stream in parallel while
+     * preserving the request and logging contexts across threads, and returns
+     * the elements of all the mapped streams in the encounter order. Each mapped
+     * stream is consumed within the contexts, so that lazily computed elements
+     * still have access to them.
+     *
+     * @param stream
+     *            the stream of elements to map
+     * @param mapper
+     *            the function mapping each element to a stream, which may be null
+     *            if there is no result
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <R>
+     *            the type of the results
+     * @return the results, in the encounter order of the stream
+     */
+    public static <T, R> List<R> flatMap(Stream<T> stream, Function<? super T, ? extends Stream<? extends R>> mapper) {
+        return flatMap(ForkJoinPool.commonPool(), stream, mapper);
+    }
+
+    /**
+     * Maps each element of the given stream to a stream in parallel on the given
+     * pool, while preserving the request and logging contexts across threads.
+     *
+     * @param pool
+     *            the pool running the stream
+     * @param stream
+     *            the stream of elements to map
+     * @param mapper
+     *            the function mapping each element to a stream, which may be null
+     *            if there is no result
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <R>
+     *            the type of the results
+     * @return the results, in the encounter order of the stream
+     */
+    public static <T, R> List<R> flatMap(ForkJoinPool pool, Stream<T> stream,
+            Function<? super T, ? extends Stream<? extends R>> mapper) {
+        CallerContext callerContext = CallerContext.capture();
+
+        return execute(pool, () -> stream.parallel().flatMap(item -> callerContext.run(() -> {
+            List<R> results = new ArrayList<>();
+            try (Stream<? extends R> mappedStream = mapper.apply(item)) {
+                if (mappedStream != null) {
+                    mappedStream.forEachOrdered(results::add);
+                }
+            }
+            return results.stream();
+        })).toList());
+    }
+
+    /**
+     * Collects the elements of the given stream in parallel while preserving the
+     * request and logging contexts across threads. The contexts are set while
+     * each element is accumulated, e.g. while the classifier of a groupingBy
+     * collector is applied.
+     *
+     * <p>
+     * Example usage:
+     * </p>
+     *
+     * <pre>
+     * Map&lt;String, List&lt;Order&gt;&gt; ordersByStatus = ParallelStreamContext.collect(orders.stream(),
+     * 		Collectors.groupingBy(order -> service.getStatus(order)));
+     * </pre>
+     *
+     * @param stream
+     *            the stream of elements to collect
+     * @param collector
+     *            the collector of the elements
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <A>
+     *            the intermediate accumulation type of the collector
+     * @param <R>
+     *            the type of the result
+     * @return the result of the collector
+     */
+    public static <T, A, R> R collect(Stream<T> stream, Collector<? super T, A, R> collector) {
+        return collect(ForkJoinPool.commonPool(), stream, collector);
+    }
+
+    /**
+     * Collects the elements of the given stream in parallel on the given pool,
+     * while preserving the request and logging contexts across threads.
+     *
+     * @param pool
+     *            the pool running the stream
+     * @param stream
+     *            the stream of elements to collect
+     * @param collector
+     *            the collector of the elements
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <A>
+     *            the intermediate accumulation type of the collector
+     * @param <R>
+     *            the type of the result
+     * @return the result of the collector
+     */
+    public static <T, A, R> R collect(ForkJoinPool pool, Stream<T> stream, Collector<? super T, A, R> collector) {
+        CallerContext callerContext = CallerContext.capture();
+        BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        Collector<T, A, R> contextCollector = Collector.of(collector.supplier(),
+                (container, item) -> callerContext.run(() -> {
+                    accumulator.accept(container, item);
+                    return null;
+                }), collector.combiner(), collector.finisher(),
+                collector.characteristics().toArray(Collector.Characteristics[]::new));
+
+        return execute(pool, () -> stream.parallel().collect(contextCollector));
+    }
+
+    /**
+     * Reduces the elements of the given stream in parallel while preserving the
+     * request and logging contexts across threads.
+     *
+     * @param stream
+     *            the stream of elements to reduce
+     * @param identity
+     *            the identity value of the accumulator
+     * @param accumulator
+     *            the associative function combining two values
+     * @param <T>
+     *            the type of elements in the stream
+     * @return the result of the reduction
+     */
+    public static <T> T reduce(Stream<T> stream, T identity, BinaryOperator<T> accumulator) {
+        return reduce(ForkJoinPool.commonPool(), stream, identity, accumulator, accumulator);
+    }
+
+    /**
+     * Maps and reduces the elements of the given stream in parallel while
+     * preserving the request and logging contexts across threads. The contexts
+     * are set while each element is accumulated.
+     *
+     * @param stream
+     *            the stream of elements to reduce
+     * @param identity
+     *            the identity value of the combiner
+     * @param accumulator
+     *            the associative function incorporating an element into a result
+     * @param combiner
+     *            the associative function combining two results
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <U>
+     *            the type of the result
+     * @return the result of the reduction
+     */
+    public static <T, U> U reduce(Stream<T> stream, U identity, BiFunction<U, ? super T, U> accumulator,
+            BinaryOperator<U> combiner) {
+        return reduce(ForkJoinPool.commonPool(), stream, identity, accumulator, combiner);
+    }
+
+    /**
+     * Maps and reduces the elements of the given stream in parallel on the given
+     * pool, while preserving the request and logging contexts across threads.
+     *
+     * @param pool
+     *            the pool running the stream
+     * @param stream
+     *            the stream of elements to reduce
+     * @param identity
+     *            the identity value of the combiner
+     * @param accumulator
+     *            the associative function incorporating an element into a result
+     * @param combiner
+     *            the associative function combining two results
+     * @param <T>
+     *            the type of elements in the stream
+     * @param <U>
+     *            the type of the result
+     * @return the result of the reduction
+     */
+    public static <T, U> U reduce(ForkJoinPool pool, Stream<T> stream, U identity,
+            BiFunction<U, ? super T, U> accumulator, BinaryOperator<U> combiner) {
+        CallerContext callerContext = CallerContext.capture();
+
+        return execute(pool, () -> stream.parallel().reduce(identity,
+                (result, item) -> callerContext.run(() -> accumulator.apply(result, item)), combiner));
+    }
+
+    /**
+     * Returns the dedicated pool with the given name, creating it with the given
+     * parallelism on first use. Its worker threads are daemon threads named after
+     * the pool, and it lives as long as the application, so that it is shared by
+     * all the callers using the same name. The parallelism of an existing pool is
+     * not changed.
+     *
+     * <p>
+     * Example usage:
+     * </p>
+     *
+     * <pre>
+     * ForkJoinPool batchPool = ParallelStreamContext.pool("batch", 4);
+     * List&lt;Report&gt; reports = ParallelStreamContext.map(batchPool, accounts.stream(), this::buildReport);
+     * </pre>
+     *
+     * @param name
+     *            the name of the pool
+     * @param parallelism
+     *            the parallelism of the pool, i.e. its target number of threads
+     * @return the dedicated pool
+     * @throws IllegalStateException
+     *             if the parallelism is not positive
+     */
+    public static ForkJoinPool pool(String name, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalStateException(
+                    String.format("Parallelism of the '%s' pool must be positive: %d", name, parallelism));
+        }
+
+        return POOLS.computeIfAbsent(name, poolName -> new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(String.format("%s-%d", poolName, thread.getPoolIndex()));
+            return thread;
+        }, null, false));
+    }
+
+    /**
+     * Runs a terminal stream operation on the given pool. Parallel streams run on
+     * the pool of the thread starting their terminal operation, so the operation
+     * is started from a task of the pool unless it is the common pool, or no pool
+     * is given.
+     */
+    private static <R> R execute(ForkJoinPool pool, Supplier<R> operation) {
+        if (pool == null || pool == ForkJoinPool.commonPool()) {
+            return operation.get();
+        }
+        return pool.invoke(ForkJoinTask.adapt(operation::get));
+    }
+
+    /**
+     * Request and logging contexts of the calling thread, set on the threads
+     * processing the stream elements.
+     */
+    private record CallerContext(long threadId, RequestAttributes contextAttributes,
+            Map<String, String> loggingContext) {
+
+        private static CallerContext capture() {
+            return new CallerContext(Thread.currentThread().getId(), HttpTraceHeader.getRequestAttributes(),
+                    HeaderContextHolder.get());
+        }
+
+        private <R> R run(Supplier<R> supplier) {
             // Set the current request attributes for the new thread
             RequestContextHolder.setRequestAttributes(contextAttributes);
 
@@ -52,14 +403,14 @@ public class ParallelStreamContext {
             }
 
             try {
-                action.accept(item);
+                return supplier.get();
             } finally {
-                if (Thread.currentThread().getId() != mainThreadId) {
+                if (Thread.currentThread().getId() != threadId) {
                     RequestContextHolder.resetRequestAttributes();
                     HeaderContextHolder.remove();
                     ThreadContext.clearAll();
                 }
             }
-        });
+        }
     }
 }
@@ -1,13 +1,17 @@
 package com.erebelo.spring.common.utils.http;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mockStatic;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -16,6 +20,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -89,6 +95,66 @@ class HttpTraceHeaderTest {
         }
     }
 
+    @Test
+    void testGetCurrentHttpTraceHeadersReusesSnapshot() {
+        given(servletRequestMock.getHeader(REQUEST_ID_HEADER)).willReturn("request-id");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequestMock));
+
+        try {
+            Map<String, String> first = HttpTraceHeader.getCurrentHttpTraceHeaders();
+            Map<String, String> second = HttpTraceHeader.getCurrentHttpTraceHeaders();
+
+            assertEquals(Map.of(REQUEST_ID_HEADER, "request-id"), first);
+            assertSame(first, second);
+            assertThrows(UnsupportedOperationException.class, () -> first.put(REQUEST_ID_HEADER, "other"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            HeaderContextHolder.remove();
+        }
+    }
+
+    @Test
+    void testGetCurrentHttpTraceHeadersWithoutRequestUsesHeaderContextHolder() {
+        Map<String, String> headers = Map.of(REQUEST_ID_HEADER, "listener-id");
+        HeaderContextHolder.set(headers);
+
+        try {
+            assertSame(headers, HttpTraceHeader.getCurrentHttpTraceHeaders());
+        } finally {
+            HeaderContextHolder.remove();
+        }
+    }
+
+    @Test
+    void testGetCurrentHttpTraceHeadersWithoutRequestGeneratesRequestID() {
+        try {
+            Map<String, String> first = HttpTraceHeader.getCurrentHttpTraceHeaders();
+            Map<String, String> second = HttpTraceHeader.getCurrentHttpTraceHeaders();
+
+            assertTrue(first.get(REQUEST_ID_HEADER).startsWith(REQUEST_ID_HEADER_PREFIX));
+            assertNotEquals(first.get(REQUEST_ID_HEADER), second.get(REQUEST_ID_HEADER));
+            assertFalse(HeaderContextHolder.isPresent());
+        } finally {
+            HeaderContextHolder.remove();
+        }
+    }
+
+    @Test
+    void testAddDefaultHttpTraceHeaders() {
+        HeaderContextHolder.set(Map.of(REQUEST_ID_HEADER, "request-id"));
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        try {
+            HttpTraceHeader.addDefaultHttpTraceHeaders(httpHeaders);
+
+            assertEquals(List.of("request-id"), httpHeaders.get(REQUEST_ID_HEADER));
+            assertEquals(MediaType.APPLICATION_JSON, httpHeaders.getContentType());
+        } finally {
+            HeaderContextHolder.remove();
+        }
+    }
+
     @Test
     void testGetHttpServletRequestWithRequestAttributes() {
         RequestAttributes mockRequestAttributes = new ServletRequestAttributes(servletRequestMock);
@@ -0,0 +1,52 @@
+package com.erebelo.spring.common.utils.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RequestDeadlineTest {
+
+    private static final String REQUEST_ID_HEADER = "RequestID";
+
+    @AfterEach
+    void tearDown() {
+        HeaderContextHolder.remove();
+    }
+
+    @Test
+    void testParse() {
+        assertEquals(1700000000000L, RequestDeadline.parse(" 1700000000000 "));
+        assertNull(RequestDeadline.parse(null));
+        assertNull(RequestDeadline.parse("soon"));
+        assertNull(RequestDeadline.parse("-5"));
+    }
+
+    @Test
+    void testGetRemainingMillis() {
+        assertNull(RequestDeadline.getRemainingMillis());
+
+        HeaderContextHolder.set(Map.of(REQUEST_ID_HEADER, "request-id", RequestDeadline.REQUEST_DEADLINE_HEADER,
+                String.valueOf(System.currentTimeMillis() + 1000)));
+        Long remaining = RequestDeadline.getRemainingMillis();
+
+        assertTrue(remaining > 0 && remaining <= 1000);
+    }
+
+    @Test
+    void testWithDefaultDeadline() {
+        Map<String, String> httpHeaders = Map.of(REQUEST_ID_HEADER, "request-id");
+
+        long startTime = System.currentTimeMillis();
+        Map<String, String> deadlineHeaders = RequestDeadline.withDefaultDeadline(httpHeaders, 500);
+        long deadline = Long.parseLong(deadlineHeaders.get(RequestDeadline.REQUEST_DEADLINE_HEADER));
+
+        assertEquals("request-id", deadlineHeaders.get(REQUEST_ID_HEADER));
+        assertTrue(deadline >= startTime + 500 && deadline <= System.currentTimeMillis() + 500);
+        assertSame(deadlineHeaders, RequestDeadline.withDefaultDeadline(deadlineHeaders, 100));
+    }
+}
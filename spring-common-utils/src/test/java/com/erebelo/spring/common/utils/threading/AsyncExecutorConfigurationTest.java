@@ -1,8 +1,11 @@
 package com.erebelo.spring.common.utils.threading;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
@@ -10,10 +13,22 @@ import static org.mockito.Mockito.mockStatic;
 
 import com.erebelo.spring.common.utils.http.HeaderContextHolder;
 import com.erebelo.spring.common.utils.http.HttpTraceHeader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.ThreadContext;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
 import org.mockito.MockedStatic;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -24,15 +39,77 @@ class AsyncExecutorConfigurationTest {
     private static final String HEADER_VALUE = "Value1";
     private static final Map<String, String> HTTP_HEADERS = Map.of(HEADER_KEY, HEADER_VALUE);
 
+    private final ObjectProvider<AsyncExecutorMetrics> noMetricsProvider = new DefaultListableBeanFactory()
+            .getBeanProvider(AsyncExecutorMetrics.class);
+
     @Test
     void testAsyncTaskExecutorConfiguration() {
         AsyncExecutorConfiguration config = new AsyncExecutorConfiguration();
-        ThreadPoolTaskExecutor executor = config.asyncTaskExecutor();
+        ThreadPoolTaskExecutor executor = config.asyncTaskExecutor(new AsyncExecutorProperties(), noMetricsProvider);
 
         assertEquals(10, executor.getCorePoolSize());
         assertEquals(20, executor.getMaxPoolSize());
         assertEquals(500, executor.getQueueCapacity());
         assertEquals("AsyncThread-", executor.getThreadNamePrefix());
+        assertInstanceOf(ThreadPoolExecutor.AbortPolicy.class,
+                executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+    }
+
+    @Test
+    void testAsyncTaskExecutorCustomConfiguration() {
+        AsyncExecutorProperties properties = new AsyncExecutorProperties();
+        properties.setCorePoolSize(2);
+        properties.setMaxPoolSize(4);
+        properties.setQueueCapacity(8);
+        properties.setKeepAliveSeconds(30);
+        properties.setRejectionPolicy(AsyncExecutorProperties.RejectionPolicy.CALLER_RUNS);
+
+        ThreadPoolTaskExecutor executor = new AsyncExecutorConfiguration().asyncTaskExecutor(properties,
+                noMetricsProvider);
+
+        assertEquals(2, executor.getCorePoolSize());
+        assertEquals(4, executor.getMaxPoolSize());
+        assertEquals(8, executor.getQueueCapacity());
+        assertEquals(30, executor.getKeepAliveSeconds());
+        assertInstanceOf(AsyncExecutorConfiguration.ContextPreservingCallerRunsPolicy.class,
+                executor.getThreadPoolExecutor().getRejectedExecutionHandler());
+    }
+
+    @Test
+    void testAsyncTaskExecutorInvalidPoolSizes() {
+        AsyncExecutorConfiguration config = new AsyncExecutorConfiguration();
+        AsyncExecutorProperties properties = new AsyncExecutorProperties();
+        properties.setCorePoolSize(30);
+
+        assertThrows(IllegalStateException.class, () -> config.asyncTaskExecutor(properties, noMetricsProvider));
+    }
+
+    @Test
+    void testContextPreservingCallerRunsPolicy() {
+        ThreadPoolExecutor threadPoolExecutor = mock(ThreadPoolExecutor.class);
+        ThreadContext.put(HEADER_KEY, "caller");
+        HeaderContextHolder.set(Map.of(HEADER_KEY, "caller"));
+
+        try {
+            List<String> taskValues = new ArrayList<>();
+            Runnable decoratedTask = () -> {
+                try {
+                    taskValues.add(ThreadContext.get(HEADER_KEY));
+                } finally {
+                    ThreadContext.clearAll();
+                    HeaderContextHolder.remove();
+                }
+            };
+            new AsyncExecutorConfiguration.ContextPreservingCallerRunsPolicy().rejectedExecution(decoratedTask,
+                    threadPoolExecutor);
+
+            assertEquals(List.of("caller"), taskValues);
+            assertEquals("caller", ThreadContext.get(HEADER_KEY));
+            assertEquals(Map.of(HEADER_KEY, "caller"), HeaderContextHolder.get());
+        } finally {
+            ThreadContext.clearAll();
+            HeaderContextHolder.remove();
+        }
     }
 
     @Test
@@ -59,4 +136,95 @@ class AsyncExecutorConfigurationTest {
             assertNull(ThreadContext.get(HEADER_KEY));
         }
     }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void testVirtualThreadTaskExecutorConfiguration() throws InterruptedException {
+        AsyncExecutorProperties properties = new AsyncExecutorProperties();
+        properties.setConcurrencyLimit(2);
+        SimpleAsyncTaskExecutor executor = new AsyncExecutorConfiguration().virtualThreadTaskExecutor(properties,
+                noMetricsProvider);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        executor.execute(() -> {
+            threadName.set(Thread.currentThread().getName());
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(threadName.get().startsWith("AsyncVirtualThread-"));
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void testVirtualThreadTaskExecutorRequiresJdk21() {
+        AsyncExecutorConfiguration config = new AsyncExecutorConfiguration();
+        AsyncExecutorProperties properties = new AsyncExecutorProperties();
+
+        assertThrows(IllegalStateException.class,
+                () -> config.virtualThreadTaskExecutor(properties, noMetricsProvider));
+    }
+
+    @Test
+    void testConcurrencyLimitingTaskDecorator() throws InterruptedException {
+        List<Thread> decoratingThreads = new ArrayList<>();
+        AsyncExecutorConfiguration.ConcurrencyLimitingTaskDecorator decorator = new AsyncExecutorConfiguration.ConcurrencyLimitingTaskDecorator(
+                2, runnable -> {
+                    decoratingThreads.add(Thread.currentThread());
+                    return runnable;
+                });
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch limitReached = new CountDownLatch(2);
+        CountDownLatch released = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Runnable task = decorator.decorate(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                limitReached.countDown();
+                await(released);
+                running.decrementAndGet();
+            });
+            threads.add(new Thread(task));
+        }
+        threads.forEach(Thread::start);
+
+        // The tasks beyond the limit wait for a permit while the first ones are held
+        assertTrue(await(limitReached));
+        threads.forEach(AsyncExecutorConfigurationTest::awaitBlocked);
+        assertEquals(2, running.get());
+        released.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        // The context is captured on the calling thread, the limit applies on the task threads
+        assertEquals(6, decoratingThreads.size());
+        decoratingThreads.forEach(thread -> assertSame(Thread.currentThread(), thread));
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, running.get());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Waits until the thread is blocked, either on the concurrency limit or on
+     * the latch holding the running tasks.
+     */
+    private static void awaitBlocked(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() - deadline < 0, thread.getName() + " not blocked: " + thread.getState());
+            Thread.yield();
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package com.erebelo.spring.common.utils.threading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class MicrometerAsyncExecutorMetricsTest {
+
+    private static final String EXECUTOR_NAME = "async";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setup() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        beanFactory.registerSingleton("asyncExecutorMetrics",
+                new MicrometerAsyncExecutorMetrics(beanFactory.getBeanProvider(MeterRegistry.class)));
+
+        AsyncExecutorProperties properties = new AsyncExecutorProperties();
+        properties.setCorePoolSize(1);
+        properties.setMaxPoolSize(1);
+        properties.setQueueCapacity(1);
+        executor = new AsyncExecutorConfiguration().asyncTaskExecutor(properties,
+                beanFactory.getBeanProvider(AsyncExecutorMetrics.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        executor.shutdown();
+    }
+
+    @Test
+    void testExecutorMetrics() throws InterruptedException {
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        CountDownLatch completedLatch = new CountDownLatch(2);
+
+        executor.execute(() -> {
+            startedLatch.countDown();
+            await(releaseLatch);
+            completedLatch.countDown();
+        });
+        assertTrue(startedLatch.await(1, TimeUnit.SECONDS));
+        executor.execute(completedLatch::countDown);
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> {
+        }));
+
+        assertEquals(1, this.gauge("executor.active"));
+        assertEquals(1, this.gauge("executor.queued"));
+        assertEquals(0, this.gauge("executor.queue.remaining"));
+        assertEquals(1, this.gauge("executor.pool.size"));
+        assertEquals(1, meterRegistry.get("executor.rejected").tag("name", EXECUTOR_NAME).counter().count());
+
+        releaseLatch.countDown();
+        assertTrue(completedLatch.await(1, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(1, TimeUnit.SECONDS));
+
+        assertEquals(2, meterRegistry.get("executor.completed").tag("name", EXECUTOR_NAME).functionCounter().count());
+        assertEquals(2, meterRegistry.get("executor").tag("name", EXECUTOR_NAME).timer().count());
+        assertEquals(2, meterRegistry.get("executor.idle").tag("name", EXECUTOR_NAME).timer().count());
+        // The queued task waited for the first one to complete
+        assertTrue(meterRegistry.get("executor.idle").tag("name", EXECUTOR_NAME).timer()
+                .max(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void testGaugesAreLeftToActuatorBinder() {
+        MeterRegistry actuatorMeterRegistry = new SimpleMeterRegistry();
+        MicrometerAsyncExecutorMetrics asyncExecutorMetrics = new MicrometerAsyncExecutorMetrics(
+                actuatorMeterRegistry, true);
+
+        asyncExecutorMetrics.bindExecutor(AsyncExecutorConfiguration.ASYNC_TASK_EXECUTOR_NAME, executor);
+        asyncExecutorMetrics.taskDecorator(AsyncExecutorConfiguration.ASYNC_TASK_EXECUTOR_NAME);
+
+        assertNull(actuatorMeterRegistry.find("executor.active").gauge());
+        assertNull(actuatorMeterRegistry.find("executor.completed").functionCounter());
+        assertNotNull(actuatorMeterRegistry.get("executor").tag("name", EXECUTOR_NAME).timer());
+        assertNotNull(actuatorMeterRegistry.get("executor.idle").tag("name", EXECUTOR_NAME).timer());
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("name", EXECUTOR_NAME).gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.erebelo.spring.common.utils.threading;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -11,8 +15,11 @@ import com.erebelo.spring.common.utils.http.HttpTraceHeader;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.springframework.web.context.request.RequestAttributes;
@@ -24,6 +31,15 @@ class ParallelStreamContextTest {
     private static final String HEADER_VALUE = "Value1";
     private static final Map<String, String> LOGGING_CONTEXT = Map.of(HEADER_KEY, HEADER_VALUE);
 
+    private final RequestAttributes requestAttributes = mock(RequestAttributes.class);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        HeaderContextHolder.remove();
+        ThreadContext.clearAll();
+    }
+
     @Test
     void testForEachPreservesContext() {
         try (MockedStatic<HttpTraceHeader> mockedStatic = mockStatic(HttpTraceHeader.class);
@@ -53,4 +69,110 @@ class ParallelStreamContextTest {
             assertEquals(HEADER_VALUE, ThreadContext.get(HEADER_KEY));
         }
     }
+
+    @Test
+    void testMapPreservesOrderAndContext() {
+        setCallerContext();
+
+        List<String> results = ParallelStreamContext.map(Stream.of("A", "B", "C", "D", "E"), item -> {
+            assertCallerContext();
+            return item.toLowerCase();
+        });
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), results);
+        assertCallerContext();
+    }
+
+    @Test
+    void testFlatMapPreservesOrderAndSkipsNullStreams() {
+        setCallerContext();
+
+        List<String> results = ParallelStreamContext.flatMap(Stream.of("A", "B", "C"), item -> {
+            assertCallerContext();
+            return "B".equals(item) ? null : Stream.of(item, item.toLowerCase());
+        });
+
+        assertEquals(List.of("A", "a", "C", "c"), results);
+    }
+
+    @Test
+    void testCollectPreservesContext() {
+        setCallerContext();
+
+        Map<Integer, List<String>> results = ParallelStreamContext.collect(Stream.of("A", "BB", "C", "DD"),
+                Collectors.groupingBy(item -> {
+                    assertCallerContext();
+                    return item.length();
+                }));
+
+        assertEquals(Map.of(1, List.of("A", "C"), 2, List.of("BB", "DD")), results);
+    }
+
+    @Test
+    void testReducePreservesContext() {
+        setCallerContext();
+
+        Integer result = ParallelStreamContext.reduce(Stream.of("A", "BB", "CCC"), 0, (sum, item) -> {
+            assertCallerContext();
+            return sum + item.length();
+        }, Integer::sum);
+
+        assertEquals(6, result);
+        assertEquals(10, ParallelStreamContext.reduce(Stream.of(1, 2, 3, 4), 0, Integer::sum));
+    }
+
+    @Test
+    void testDedicatedPoolRunsOperationOnPoolThreads() {
+        setCallerContext();
+        ForkJoinPool pool = ParallelStreamContext.pool("test-pool", 2);
+
+        List<String> threadNames = ParallelStreamContext.map(pool, Stream.of("A", "B", "C", "D"), item -> {
+            assertCallerContext();
+            return Thread.currentThread().getName();
+        });
+
+        assertTrue(threadNames.stream().allMatch(threadName -> threadName.startsWith("test-pool-")));
+        assertCallerContext();
+    }
+
+    @Test
+    void testDedicatedPoolCleansUpWorkerContext() {
+        setCallerContext();
+        ForkJoinPool pool = ParallelStreamContext.pool("test-cleanup-pool", 1);
+
+        ParallelStreamContext.forEach(pool, Stream.of("A", "B"), item -> assertCallerContext());
+        tearDown();
+
+        ParallelStreamContext.forEach(pool, Stream.of("A", "B"), item -> {
+            assertNull(RequestContextHolder.getRequestAttributes());
+            assertTrue(ThreadContext.isEmpty());
+        });
+    }
+
+    @Test
+    void testPoolReturnsSamePoolForSameName() {
+        ForkJoinPool pool = ParallelStreamContext.pool("test-shared-pool", 2);
+
+        assertSame(pool, ParallelStreamContext.pool("test-shared-pool", 4));
+        assertEquals(2, pool.getParallelism());
+        assertNotSame(pool, ParallelStreamContext.pool("test-other-pool", 2));
+        assertNotSame(ForkJoinPool.commonPool(), pool);
+    }
+
+    @Test
+    void testPoolRejectsNonPositiveParallelism() {
+        assertThrows(IllegalStateException.class, () -> ParallelStreamContext.pool("test-invalid-pool", 0));
+    }
+
+    private void setCallerContext() {
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        HeaderContextHolder.set(LOGGING_CONTEXT);
+        ThreadContext.putAll(LOGGING_CONTEXT);
+    }
+
+    private void assertCallerContext() {
+        assertEquals(requestAttributes, RequestContextHolder.getRequestAttributes());
+        assertEquals(LOGGING_CONTEXT, HeaderContextHolder.get());
+        assertEquals(HEADER_VALUE, ThreadContext.get(HEADER_KEY));
+    }
 }